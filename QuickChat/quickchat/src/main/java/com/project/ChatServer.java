@@ -0,0 +1,391 @@
+package com.project;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.project.Model.Message;
+import com.project.Model.SessionManager;
+import com.project.Model.User;
+import com.project.Model.UserRegistry;
+
+/**
+ * Serves the QuickChat operations to many clients at once over TCP on the loopback
+ * interface. Every connection is a session on its own virtual thread, so thousands of
+ * mostly idle sessions cost little more than their sockets.
+ *
+ * The protocol is line based UTF-8. A client sends one command per line:
+ * <pre>
+ * REGISTER username firstname lastname password phonenumber
+ * LOGIN username password
+ * RESUME token
+ * LOGOUT
+ * SEND recipient-username send|store|discard message text...
+ * SEARCHID messageID
+ * SEARCHRECIP phonenumber
+ * SEARCHTEXT keywords...
+ * INBOX
+ * SUBSCRIBE
+ * DELETE messagehash
+ * REPORT
+ * STATS
+ * QUIT
+ * </pre>
+ * and gets back either {@code OK n} followed by n lines of output, or {@code ERR reason}.
+ * After SUBSCRIBE, sent messages stored for the user's number are pushed as they arrive,
+ * as {@code PUSH n} followed by one line per message, between replies.
+ * Everything except REGISTER, LOGIN, RESUME and QUIT needs a logged in session. Messages go
+ * through the same {@link Message} operations as the console menus.
+ *
+ * LOGIN replies with a session token. A client that reconnects can RESUME with the token
+ * instead of logging in again, which skips the slow password hash. QUIT closes the
+ * connection but keeps the session; LOGOUT ends it.
+ */
+public class ChatServer implements Closeable {
+    private static final int ACCEPT_BACKLOG = 4096;
+
+    private final int requestedPort;
+    private final UserRegistry users;
+    private final SessionManager logins = new SessionManager();
+    private final Set<Socket> openSessions = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger activeSessions = new AtomicInteger();
+    private final CountDownLatch closed = new CountDownLatch(1);
+    private final ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor();
+    private ServerSocket serverSocket;
+
+    /**
+     * A server with its own in-memory user registry.
+     * @param port The TCP port to listen on, or 0 to pick a free one.
+     */
+    public ChatServer(int port) {
+        this(port, new UserRegistry());
+    }
+
+    /**
+     * @param port The TCP port to listen on, or 0 to pick a free one.
+     * @param users Where sessions register and log in, shared with whoever else uses it.
+     */
+    public ChatServer(int port, UserRegistry users) {
+        this.requestedPort = port;
+        this.users = users;
+    }
+
+    /**
+     * Starts listening and returns; connections are accepted on a background thread.
+     */
+    public synchronized void start() throws IOException {
+        if (serverSocket != null) {
+            throw new IllegalStateException("Server already started");
+        }
+        serverSocket = new ServerSocket(requestedPort, ACCEPT_BACKLOG, InetAddress.getLoopbackAddress());
+        Thread.ofVirtual().name("chat-acceptor").start(this::acceptLoop);
+    }
+
+    /** @return The port the server listens on. */
+    public synchronized int getPort() {
+        return serverSocket == null ? requestedPort : serverSocket.getLocalPort();
+    }
+
+    /** @return The number of connected sessions. */
+    public int getActiveSessions() {
+        return activeSessions.get();
+    }
+
+    /**
+     * Blocks until {@link #close()} is called.
+     */
+    public void awaitClose() throws InterruptedException {
+        closed.await();
+    }
+
+    /**
+     * Stops accepting connections and disconnects every session.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        }
+        for (Socket socket : openSessions) {
+            socket.close();
+        }
+        sessions.shutdown();
+        closed.countDown();
+    }
+
+    private void acceptLoop() {
+        while (true) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    System.err.println("Chat server stopped accepting connections: " + e.getMessage());
+                }
+                return;
+            }
+            openSessions.add(socket);
+            sessions.execute(() -> runSession(socket));
+        }
+    }
+
+    private void runSession(Socket socket) {
+        activeSessions.incrementAndGet();
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             BufferedWriter out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            Session session = new Session(out);
+            try {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    session.write(session.handle(line.trim()));
+                    if (session.quit) {
+                        break;
+                    }
+                }
+            } finally {
+                session.unsubscribe();
+            }
+        } catch (SocketException e) {
+            // client went away or the server is closing
+        } catch (IOException e) {
+            System.err.println("Chat session error: " + e.getMessage());
+        } finally {
+            openSessions.remove(socket);
+            activeSessions.decrementAndGet();
+        }
+    }
+
+    /**
+     * Registers a user with the same rules as the console registration.
+     */
+    String register(String username, String firstname, String lastname, String password, String phonenumber) {
+        if (!Validation.checkUserName(username)) {
+            return "Username is not correctly formatted, please ensure that your username contains an underscore and is no more than five characters in lenght";
+        } else if (!Validation.checkPasswordComplexity(password)) {
+            return "Password is incorrectly formatted; please ensure that the password contains at least characters, a capital letter, a number, or a special character";
+        } else if (!Validation.checkPhoneNumber(phonenumber)) {
+            return "Cell phone number is incorrectly formatted or does not contain international code";
+        }
+        User newUser = new User(username, firstname, lastname, password, phonenumber);
+        try {
+            switch (users.register(newUser)) {
+                case REGISTERED:
+                    return "User successfully registered.";
+                case USERNAME_TAKEN:
+                    return "Username already exists. Please try again.";
+                default:
+                    return "Cell phone number is already registered. Please try again.";
+            }
+        } catch (IOException e) {
+            return "Could not save the new user: " + e.getMessage();
+        }
+    }
+
+    private static String ok(String output) {
+        return frame("OK", output);
+    }
+
+    private static String frame(String status, String output) {
+        String[] lines = output.split("\n", -1);
+        StringBuilder sb = new StringBuilder(status).append(' ').append(lines.length).append('\n');
+        for (String line : lines) {
+            sb.append(line).append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static String error(String reason) {
+        return "ERR " + reason + "\n";
+    }
+
+    /**
+     * State of one connection. Commands run on the connection's thread; pushed messages
+     * arrive on a feed thread and share the writer under a lock. It is a
+     * {@link ReentrantLock} so a virtual thread blocked on a slow client does not pin its
+     * carrier thread.
+     */
+    private final class Session implements Flow.Subscriber<List<Message>> {
+        private final BufferedWriter out;
+        private final ReentrantLock writeLock = new ReentrantLock();
+        private volatile Flow.Subscription subscription;
+        User user;
+        String token;
+        boolean quit;
+
+        Session(BufferedWriter out) {
+            this.out = out;
+        }
+
+        void write(String text) throws IOException {
+            writeLock.lock();
+            try {
+                out.write(text);
+                out.flush();
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        void unsubscribe() {
+            Flow.Subscription current = subscription;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription s) {
+            subscription = s;
+            s.request(1);
+        }
+
+        /** Writes a batch, then asks for the next one; a slow client holds up only its own feed. */
+        @Override
+        public void onNext(List<Message> batch) {
+            String lines = Message.printMessages(batch);
+            try {
+                write(frame("PUSH", lines.substring(0, lines.length() - 1)));
+                subscription.request(1);
+            } catch (IOException e) {
+                subscription.cancel();
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            subscription = null;
+        }
+
+        @Override
+        public void onComplete() {
+            subscription = null;
+        }
+
+        String handle(String line) {
+            String[] words = line.split("\\s+", 2);
+            String command = words[0].toUpperCase();
+            String args = words.length > 1 ? words[1] : "";
+
+            switch (command) {
+                case "REGISTER": {
+                    String[] fields = args.split("\\s+");
+                    if (fields.length != 5) {
+                        return error("Usage: REGISTER username firstname lastname password phonenumber");
+                    }
+                    String result = register(fields[0], fields[1], fields[2], fields[3], fields[4]);
+                    return result.equals("User successfully registered.") ? ok(result) : error(result);
+                }
+                case "LOGIN": {
+                    String[] fields = args.split("\\s+");
+                    User found = fields.length == 2 ? users.login(fields[0], fields[1]) : null;
+                    if (found == null) {
+                        return error("User name or password incorrect, please try again.");
+                    }
+                    user = found;
+                    token = logins.open(found);
+                    return ok("Welcome QuickChat\nSession token: " + token);
+                }
+                case "RESUME": {
+                    User found = logins.resume(args.trim());
+                    if (found == null) {
+                        return error("Session expired or unknown, please LOGIN again.");
+                    }
+                    user = found;
+                    token = args.trim();
+                    return ok("Welcome back " + found.getUsername());
+                }
+                case "QUIT":
+                    quit = true;
+                    return ok("Goodbye.");
+                case "":
+                    return error("Empty command");
+                default:
+                    break;
+            }
+
+            if (user == null) {
+                return error("Please LOGIN first.");
+            }
+            switch (command) {
+                case "LOGOUT":
+                    logins.close(token);
+                    unsubscribe();
+                    subscription = null;
+                    user = null;
+                    token = null;
+                    return ok("Logged out.");
+                case "SEND":
+                    return send(args);
+                case "SUBSCRIBE":
+                    if (subscription != null) {
+                        return error("Already subscribed.");
+                    }
+                    Message.subscribeToRecipient(user.getPhoneNumber()).subscribe(this);
+                    return ok("Subscribed to new messages for " + user.getPhoneNumber() + ".");
+                case "INBOX":
+                    return ok(Message.printMessages(Message.getReceivedMessages(user)));
+                case "SEARCHID":
+                    return ok(Message.searchMessageById(args));
+                case "SEARCHRECIP":
+                    return ok(Message.searchMessagesByRecipient(args));
+                case "SEARCHTEXT":
+                    return ok(Message.searchMessagesByKeyword(args));
+                case "DELETE":
+                    return ok(Message.deleteMessageByHash(args));
+                case "REPORT":
+                    return ok(Message.generateSentMessagesReport());
+                case "STATS":
+                    return ok(Message.getStats().report());
+                default:
+                    return error("Unknown command " + command);
+            }
+        }
+
+        private String send(String args) {
+            String[] fields = args.split("\\s+", 3);
+            if (fields.length < 3) {
+                return error("Usage: SEND recipient-username send|store|discard message text");
+            }
+            User recipientUser = users.findByUsername(fields[0]);
+            if (recipientUser == null) {
+                return error("Recipient username not found. Please ensure the username exists before sending.");
+            }
+            String decision = fields[1];
+            Message msg = new Message(user.getPhoneNumber(), recipientUser.getPhoneNumber(), fields[2], decision);
+            if (!msg.checkMessageID()) {
+                return error("Generated message ID is too long. Message not processed.");
+            }
+            String statusMessage = msg.sentMessage(decision);
+            try {
+                Message.storeMessageAsync(List.of(msg)).join();
+            } catch (RuntimeException e) {
+                return error("Message could not be saved: " + e.getMessage());
+            }
+            String delivery = Message.deliverMessage(recipientUser, msg);
+            if (delivery != null) {
+                statusMessage += "\n" + delivery;
+            }
+            return ok(statusMessage + "\nMessage ID: " + msg.getMessageID() + "\nMessage hash: " + msg.getHash());
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.project;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load generator for {@link ChatServer}. Opens many sessions at once, one virtual thread
+ * each, registers and logs in a user per session, waits until every session is connected
+ * and then has them all send and look up messages simultaneously.
+ *
+ * Usage: {@code LoadClient [host] [port] [sessions] [messagesPerSession]}, defaulting to
+ * localhost 5121 2000 5. Thousands of sessions may need a higher open file limit
+ * ({@code ulimit -n}) on both ends.
+ */
+public class LoadClient {
+
+    /**
+     * One connection speaking the server's line protocol.
+     */
+    public static class Connection implements Closeable {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final BufferedWriter out;
+        private final ArrayDeque<List<String>> pushed = new ArrayDeque<>();
+
+        public Connection(String host, int port) throws IOException {
+            socket = new Socket(host, port);
+            in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Sends one command and reads the whole reply.
+         * @return The reply's output lines.
+         * @throws IOException If the server answered with ERR, or the connection failed.
+         */
+        public List<String> call(String command) throws IOException {
+            out.write(command);
+            out.write('\n');
+            out.flush();
+            while (true) {
+                String status = readStatus();
+                if (status.startsWith("PUSH ")) {
+                    pushed.add(readLines(status.substring(5))); // keep for readPush()
+                } else if (status.startsWith("OK ")) {
+                    return readLines(status.substring(3));
+                } else {
+                    throw new IOException(command.split(" ", 2)[0] + " failed: " + status);
+                }
+            }
+        }
+
+        /**
+         * Waits for the next batch of messages pushed after SUBSCRIBE.
+         * @return One line per message.
+         */
+        public List<String> readPush() throws IOException {
+            if (!pushed.isEmpty()) {
+                return pushed.poll();
+            }
+            String status = readStatus();
+            if (!status.startsWith("PUSH ")) {
+                throw new IOException("Expected pushed messages but got: " + status);
+            }
+            return readLines(status.substring(5));
+        }
+
+        private String readStatus() throws IOException {
+            String status = in.readLine();
+            if (status == null) {
+                throw new IOException("Server closed the connection");
+            }
+            return status;
+        }
+
+        private List<String> readLines(String count) throws IOException {
+            int lines = Integer.parseInt(count);
+            List<String> output = new ArrayList<>(lines);
+            for (int i = 0; i < lines; i++) {
+                output.add(in.readLine());
+            }
+            return output;
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    /**
+     * The outcome of a load run.
+     */
+    public record Result(int sessions, int failedSessions, int peakConcurrentSessions, long operations, long elapsedNanos) {
+        public double operationsPerSecond() {
+            return operations * 1_000_000_000.0 / Math.max(1, elapsedNanos);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d sessions (%d failed), %d open at once, %d operations in %.2f s, %.0f ops/s",
+                    sessions, failedSessions, peakConcurrentSessions, operations, elapsedNanos / 1e9, operationsPerSecond());
+        }
+    }
+
+    /**
+     * Runs the load against a server.
+     * @param firstUser Index of the first generated user, so separate runs against the same
+     *                  server do not collide on usernames.
+     */
+    public static Result run(String host, int port, int sessions, int messagesPerSession, int firstUser) throws InterruptedException {
+        CountDownLatch connected = new CountDownLatch(sessions);
+        CountDownLatch go = new CountDownLatch(1);
+        AtomicInteger open = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        AtomicLong operations = new AtomicLong();
+        AtomicInteger failed = new AtomicInteger();
+
+        long started = System.nanoTime();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int s = 0; s < sessions; s++) {
+                int user = firstUser + s;
+                pool.submit(() -> {
+                    boolean opened = false;
+                    boolean counted = false;
+                    try (Connection c = new Connection(host, port)) {
+                        opened = true;
+                        peak.accumulateAndGet(open.incrementAndGet(), Math::max);
+                        c.call("REGISTER " + username(user) + " Load User" + user + " Passw0rd! " + phoneNumber(user));
+                        c.call("LOGIN " + username(user) + " Passw0rd!");
+                        operations.addAndGet(2);
+                        connected.countDown();
+                        counted = true;
+                        go.await();
+
+                        for (int i = 0; i < messagesPerSession; i++) {
+                            List<String> sent = c.call("SEND " + username(user) + " send load message " + i + " from session " + user);
+                            for (String line : sent) {
+                                if (line.startsWith("Message ID: ")) {
+                                    c.call("SEARCHID " + line.substring("Message ID: ".length()));
+                                }
+                            }
+                            operations.addAndGet(2);
+                        }
+                        c.call("QUIT");
+                        operations.incrementAndGet();
+                    } catch (IOException e) {
+                        failed.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        if (opened) {
+                            open.decrementAndGet();
+                        }
+                        if (!counted) {
+                            connected.countDown();
+                        }
+                    }
+                    return null;
+                });
+            }
+            connected.await();
+            go.countDown();
+        }
+        return new Result(sessions, failed.get(), peak.get(), operations.get(), System.nanoTime() - started);
+    }
+
+    /** @return A valid username (an underscore and four more characters) for the index. */
+    static String username(int user) {
+        String suffix = Integer.toString(user % (36 * 36 * 36 * 36), 36);
+        return "_" + "0000".substring(suffix.length()) + suffix;
+    }
+
+    /** @return A valid cell number for the index. */
+    static String phoneNumber(int user) {
+        return String.format("+278%08d", user % 100_000_000);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 5121;
+        int sessions = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        int messagesPerSession = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        int firstUser = (int) (System.currentTimeMillis() / 1000 % 1_000_000);
+
+        System.out.println("Opening " + sessions + " sessions against " + host + ":" + port + "...");
+        System.out.println(run(host, port, sessions, messagesPerSession, firstUser));
+    }
+}
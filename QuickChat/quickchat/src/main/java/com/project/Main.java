@@ -4,10 +4,20 @@
 
 package com.project;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
 
+import com.project.Model.DurabilityPolicy;
+import com.project.Model.GroupCommitWriter;
 import com.project.Model.Message;
+import com.project.Model.MessageImporter;
+import com.project.Model.MessageLog;
+import com.project.Model.SegmentStorage;
+import com.project.Model.SessionManager;
+import com.project.Model.StreamingJsonLoader;
 import com.project.Model.User;
+import com.project.Model.UserRegistry;
 
 /**
  *
@@ -15,19 +25,15 @@ import com.project.Model.User;
  */
 
 public class Main {
-    static List<User> users = new ArrayList<>();
-    static List<Message> messages = new ArrayList<>();
+    // Registered users, appended to users.jsonl and read back by main at startup
+    static UserRegistry users = new UserRegistry(new File("users.jsonl"));
+    // Sessions opened by logging in, so a user can come back to messaging without the password
+    static SessionManager sessions = new SessionManager();
 
     static User loggedUser = null;
+    static String sessionToken = null;
     public static String registerUser(String username, String firstname, String lastname, String password, String phonenumber) {
-        boolean isRegistered = false;
         String result = "";
-        for (User user : users) {
-            if (user.getUsername().equals(username)) {
-                isRegistered = true;
-                break;
-            }
-        }
 
         if (Validation.checkUserName(username) == false) {
             result += "\nUsername is not correctly formatted, please ensure that your username contains an underscore and is no more than five characters in lenght";
@@ -36,27 +42,30 @@ public class Main {
         } else if(Validation.checkPhoneNumber(phonenumber) == false) {
             result +=  "\nCell phone number is incorrectly formatted or does not contain international code";
         } else{
-            if (isRegistered == false) {
-                User newUser = new User(username, firstname, lastname, password, phonenumber);
-                users.add(newUser);
-
-                result =  "User successfully registered.";
-            } else if(isRegistered == true) {
-                result =  "Username already exists. Please try again.";
+            User newUser = new User(username, firstname, lastname, password, phonenumber);
+            try {
+                UserRegistry.Result registered = users.register(newUser);
+                if (registered == UserRegistry.Result.REGISTERED) {
+                    result =  "User successfully registered.";
+                } else if (registered == UserRegistry.Result.USERNAME_TAKEN) {
+                    result =  "Username already exists. Please try again.";
+                } else {
+                    result =  "Cell phone number is already registered. Please try again.";
+                }
+            } catch (IOException e) {
+                result =  "Could not save the new user: " + e.getMessage();
             }
         }
         return result;
     }
 
     public static boolean loginUser(String username, String password) {
-        boolean result = false;
-        for (User user : users) {
-            if (user.getUsername().equals(username) && user.getPassword().equals(password)) {
-                loggedUser = user;
-                result = true;
-            }
+        User user = users.login(username, password);
+        if (user != null) {
+            loggedUser = user;
+            sessionToken = sessions.open(user);
         }
-        return result;
+        return user != null;
     }
 
     private static String requestUsernameWithRetry(String expectation, Scanner input) {
@@ -105,11 +114,73 @@ public class Main {
         }
     }
 
+    private static void importMessages(File file) {
+        MessageImporter importer = new MessageImporter(Message.getStore(), MessageImporter.DEFAULT_CHUNK_SIZE,
+                StreamingJsonLoader.consoleProgress());
+        try {
+            System.out.println(importer.importFile(file));
+        } catch (IOException e) {
+            System.err.println("Error importing " + file.getName() + ": " + e.getMessage());
+        }
+    }
+
+    private static void runServer(int port) {
+        ChatServer server = new ChatServer(port, users);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+            } catch (IOException e) {
+                System.err.println("Error stopping server: " + e.getMessage());
+            }
+            Message.closeStorage();
+        }));
+        try {
+            server.start();
+            System.out.println("QuickChat server listening on port " + server.getPort() + ". Press Ctrl+C to stop.");
+            server.awaitClose();
+        } catch (IOException e) {
+            System.err.println("Could not start server: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     public static void main(String[] args) {
+        if ("segments".equals(System.getProperty("quickchat.storage"))) {
+            // Memory-mapped binary segments under ./segments, forced to disk after every store and delete
+            Message.useStorage(new SegmentStorage(new File("segments")));
+        } else {
+            // New messages are appended to messages.log and periodically folded into messages.snapshot;
+            // an existing messages.json is migrated on first start. Writes are group committed in the background.
+            MessageLog log = new MessageLog(new File("messages.log"), new File("messages.snapshot"), new File("messages.json"));
+            Message.useStorage(GroupCommitWriter.start(log, DurabilityPolicy.everyMillis(10)));
+        }
+        // Keep message fields in packed columns rather than per-message strings;
+        // -Dquickchat.content=offheap moves message bodies out of the Java heap as well.
+        Message.useColumnarStore(true, "offheap".equals(System.getProperty("quickchat.content")));
+        Message.loadMessagesFromJson();
+        try {
+            users.load();
+        } catch (IOException e) {
+            System.err.println("Error loading users from " + users.getFile().getName() + ": " + e.getMessage());
+        }
+
+        if (args.length >= 2 && args[0].equals("import")) {
+            // Bulk load a .jsonl or .csv dump of messages, e.g. import old-messages.csv
+            importMessages(new File(args[1]));
+            Message.closeStorage();
+            return;
+        }
+        if (args.length >= 1 && args[0].equals("--server")) {
+            // Serve clients over TCP instead of the console menu, e.g. --server 5121
+            runServer(args.length >= 2 ? Integer.parseInt(args[1]) : 5121);
+            return;
+        }
+
         Scanner sc = new Scanner(System.in);
 
         while (true) {
-            System.out.println("\nChoose an option: 1 - Register, 2 - Login, 3 - Exit");
+            System.out.println("\nChoose an option: 1 - Register, 2 - Login, 3 - Exit, 4 - Resume Session");
             int choice = sc.nextInt();
             sc.nextLine();
 
@@ -152,7 +223,8 @@ public class Main {
                     boolean isLoggedIn = loginUser(loginUsername, loginPassword);
                     if (isLoggedIn) {
                         System.out.println("Welcome QuickChat");
-                        RunMessaging.startMessaging(loggedUser, users, messages, sc);
+                        System.out.println("Your session token is " + sessionToken + " (use option 4 to come back without your password)");
+                        RunMessaging.startMessaging(loggedUser, users, sc);
                     } else {
                         System.out.println("User name or password incorrect, please try again.");
                     }
@@ -160,9 +232,25 @@ public class Main {
 
                 case 3:
                     System.out.println("Exiting...");
+                    Message.closeStorage();
                     sc.close();
                     return;
 
+                case 4:
+                    System.out.print("Enter session token: ");
+                    String token = sc.nextLine().trim();
+
+                    User resumed = sessions.resume(token);
+                    if (resumed != null) {
+                        loggedUser = resumed;
+                        sessionToken = token;
+                        System.out.println("Welcome back " + resumed.getUsername());
+                        RunMessaging.startMessaging(loggedUser, users, sc);
+                    } else {
+                        System.out.println("Session expired or unknown, please log in again.");
+                    }
+                    break;
+
                 default:
                     System.out.println("Invalid choice. Please try again.");
             }
@@ -0,0 +1,25 @@
+package com.project.Model;
+
+/**
+ * Append-only byte storage for message content in a {@link MessageColumns} store.
+ * Content is addressed by the {@code long} returned from {@link #append(byte[])} plus its
+ * length. Space is never freed piecemeal; the column store copies live content into a
+ * fresh arena from {@link #newEmpty(long)} when enough of it is garbage.
+ */
+public interface ContentArena {
+
+    /**
+     * @return The address of the copied bytes.
+     */
+    long append(byte[] bytes);
+
+    byte[] read(long address, int length);
+
+    /** @return Bytes appended so far. */
+    long bytesUsed();
+
+    /**
+     * @return An empty arena of the same kind, sized for about {@code expectedBytes}.
+     */
+    ContentArena newEmpty(long expectedBytes);
+}
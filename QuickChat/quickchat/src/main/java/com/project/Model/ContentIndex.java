@@ -0,0 +1,321 @@
+package com.project.Model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Inverted index over message content. Content is split into words at anything that is
+ * not a letter or digit and case folded. Each word maps to a sorted {@code int[]} posting
+ * list of document numbers. Each indexed message gets a document number, the lowest
+ * freed one if any, so the document table stays as large as the most messages indexed
+ * at once. New numbers are appended to posting lists and reused ones inserted in place.
+ *
+ * Queries are words separated by spaces. Words next to each other must all match
+ * (implicit AND), {@code OR} separates alternatives, {@code AND} may be written out, and a
+ * trailing {@code *} matches every word with that prefix: {@code "cake OR pie*"}. The cost
+ * of a query depends on the length of the posting lists it touches, not on how many
+ * messages are stored.
+ *
+ * Removed messages are dropped from the document table straight away and from the posting
+ * lists in bulk once they make up half of the postings. Their document numbers are only
+ * reused after that, so a new message never matches an old one's words. Not thread safe.
+ */
+public class ContentIndex {
+
+    private static final class Postings {
+        int[] docs = new int[2];
+        int size;
+
+        void add(int doc) {
+            int at = size;
+            if (size > 0 && docs[size - 1] >= doc) {
+                at = Arrays.binarySearch(docs, 0, size, doc);
+                if (at >= 0) {
+                    return; // word repeated in the same message
+                }
+                at = -at - 1; // a reused document number
+            }
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            System.arraycopy(docs, at, docs, at + 1, size - at);
+            docs[at] = doc;
+            size++;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(docs, size);
+        }
+    }
+
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private Message[] documents = new Message[64];
+    private long[] addedAt = new long[64]; // when each document was indexed, for result order
+    private long added;
+    private int nextDoc;
+    private int liveDocs;
+    private final BitSet freeDocs = new BitSet();    // reusable document numbers
+    private final BitSet pendingDocs = new BitSet(); // freed, but still in posting lists
+    private boolean reused;
+    private long postings;
+    private long deadPostings;
+
+    /**
+     * Splits text into lower case words.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                word.append(Character.toLowerCase(c));
+            } else if (word.length() > 0) {
+                tokens.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        if (word.length() > 0) {
+            tokens.add(word.toString());
+        }
+        return tokens;
+    }
+
+    public int size() {
+        return liveDocs;
+    }
+
+    public void add(Message msg) {
+        add(msg, tokenize(msg.getContent()));
+    }
+
+    /**
+     * Indexes a message whose content was already split with {@link #tokenize(String)},
+     * so the splitting can happen before taking a lock around the index.
+     */
+    public void add(Message msg, List<String> tokens) {
+        if (msg.slot >= 0 && msg.slot < nextDoc && documents[msg.slot] == msg) {
+            return; // already indexed
+        }
+        int doc = freeDocs.nextSetBit(0);
+        if (doc >= 0) {
+            freeDocs.clear(doc);
+            reused = true;
+        } else {
+            doc = nextDoc++;
+            if (doc == documents.length) {
+                documents = Arrays.copyOf(documents, doc * 2);
+                addedAt = Arrays.copyOf(addedAt, doc * 2);
+            }
+        }
+        documents[doc] = msg;
+        addedAt[doc] = added++;
+        msg.slot = doc;
+        liveDocs++;
+        for (String token : tokens) {
+            Postings list = terms.computeIfAbsent(token, t -> new Postings());
+            int before = list.size;
+            list.add(doc);
+            postings += list.size - before;
+        }
+    }
+
+    public void remove(Message msg) {
+        remove(msg, tokenize(msg.getContent()));
+    }
+
+    /**
+     * Removes a message, given the words of its content from {@link #tokenize(String)}.
+     */
+    public void remove(Message msg, List<String> tokens) {
+        int doc = msg.slot;
+        if (doc < 0 || doc >= nextDoc || documents[doc] != msg) {
+            return;
+        }
+        documents[doc] = null;
+        msg.slot = -1;
+        liveDocs--;
+        int dead = countDistinct(tokens);
+        if (dead == 0) {
+            freeDocs.set(doc); // in no posting list
+            return;
+        }
+        pendingDocs.set(doc);
+        deadPostings += dead;
+        if (deadPostings * 2 > postings) {
+            purgeDeadPostings();
+        }
+    }
+
+    public void clear() {
+        terms.clear();
+        Arrays.fill(documents, 0, nextDoc, null);
+        nextDoc = 0;
+        liveDocs = 0;
+        postings = 0;
+        deadPostings = 0;
+        freeDocs.clear();
+        pendingDocs.clear();
+        reused = false;
+    }
+
+    /**
+     * @return The messages matching the query, in the order they were indexed.
+     */
+    public List<Message> search(String query) {
+        int[] matches = null;
+        for (List<String> group : parse(query)) {
+            int[] groupMatches = matchAll(group);
+            matches = matches == null ? groupMatches : union(matches, groupMatches);
+        }
+        List<Message> found = new ArrayList<>();
+        if (matches != null) {
+            for (int doc : matches) {
+                Message msg = documents[doc];
+                if (msg != null) {
+                    found.add(msg);
+                }
+            }
+        }
+        if (reused) {
+            found.sort(Comparator.comparingLong(m -> addedAt[m.slot])); // document order is no longer index order
+        }
+        return found;
+    }
+
+    /**
+     * Splits a query into OR separated groups of words that must all match.
+     */
+    private static List<List<String>> parse(String query) {
+        List<List<String>> groups = new ArrayList<>();
+        List<String> group = new ArrayList<>();
+        if (query == null) {
+            return groups;
+        }
+        for (String part : query.trim().split("\\s+")) {
+            if (part.equals("OR")) {
+                if (!group.isEmpty()) {
+                    groups.add(group);
+                    group = new ArrayList<>();
+                }
+            } else if (!part.equals("AND") && !part.isEmpty()) {
+                boolean prefix = part.endsWith("*");
+                List<String> words = tokenize(part);
+                for (int i = 0; i < words.size(); i++) {
+                    // Only the last word of "ice-cre*" is a prefix.
+                    group.add(prefix && i == words.size() - 1 ? words.get(i) + "*" : words.get(i));
+                }
+            }
+        }
+        if (!group.isEmpty()) {
+            groups.add(group);
+        }
+        return groups;
+    }
+
+    private int[] matchAll(List<String> words) {
+        int[][] lists = new int[words.size()][];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = postingsFor(words.get(i));
+            if (lists[i].length == 0) {
+                return lists[i];
+            }
+        }
+        // Intersect smallest first so the work is bounded by the rarest word.
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.length, b.length));
+        int[] result = lists[0];
+        for (int i = 1; i < lists.length && result.length > 0; i++) {
+            result = intersect(result, lists[i]);
+        }
+        return result;
+    }
+
+    /**
+     * A prefix can match many words, so their posting lists are merged through a bit set
+     * of document numbers in one pass, rather than one pairwise union per word.
+     */
+    private int[] postingsFor(String word) {
+        if (word.endsWith("*")) {
+            String prefix = word.substring(0, word.length() - 1);
+            BitSet docs = new BitSet(nextDoc);
+            for (Postings list : terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+                for (int i = 0; i < list.size; i++) {
+                    docs.set(list.docs[i]);
+                }
+            }
+            return docs.stream().toArray();
+        }
+        Postings list = terms.get(word);
+        return list == null ? new int[0] : list.toArray();
+    }
+
+    private static int[] intersect(int[] small, int[] large) {
+        int[] out = new int[small.length];
+        int n = 0;
+        int from = 0;
+        for (int doc : small) {
+            int at = Arrays.binarySearch(large, from, large.length, doc);
+            if (at >= 0) {
+                out[n++] = doc;
+                from = at + 1;
+            } else {
+                from = -at - 1;
+            }
+            if (from >= large.length) {
+                break;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        int[] out = new int[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                out[n++] = a[i++];
+            } else if (a[i] > b[j]) {
+                out[n++] = b[j++];
+            } else {
+                out[n++] = a[i++];
+                j++;
+            }
+        }
+        while (i < a.length) {
+            out[n++] = a[i++];
+        }
+        while (j < b.length) {
+            out[n++] = b[j++];
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private void purgeDeadPostings() {
+        postings = 0;
+        terms.values().removeIf(list -> {
+            int kept = 0;
+            for (int i = 0; i < list.size; i++) {
+                if (documents[list.docs[i]] != null) {
+                    list.docs[kept++] = list.docs[i];
+                }
+            }
+            list.size = kept;
+            postings += kept;
+            return kept == 0;
+        });
+        deadPostings = 0;
+        freeDocs.or(pendingDocs);
+        pendingDocs.clear();
+    }
+
+    private static int countDistinct(List<String> tokens) {
+        return (int) tokens.stream().distinct().count();
+    }
+}
@@ -0,0 +1,65 @@
+package com.project.Model;
+
+/**
+ * When {@link GroupCommitWriter} forces a batch of queued messages to disk.
+ */
+public final class DurabilityPolicy {
+
+    public enum Mode {
+        /** Write and sync whatever is queued as soon as the writer is free. */
+        EVERY_WRITE,
+        /** Collect messages for a fixed number of milliseconds, then write and sync once. */
+        INTERVAL,
+        /** Collect until a fixed number of messages are queued, then write and sync once. */
+        BATCH_SIZE
+    }
+
+    /** A partially filled batch is still written after this long in {@link Mode#BATCH_SIZE}. */
+    static final long BATCH_MAX_WAIT_MILLIS = 1000;
+
+    private final Mode mode;
+    private final long intervalMillis;
+    private final int batchSize;
+
+    private DurabilityPolicy(Mode mode, long intervalMillis, int batchSize) {
+        this.mode = mode;
+        this.intervalMillis = intervalMillis;
+        this.batchSize = batchSize;
+    }
+
+    public static DurabilityPolicy everyWrite() {
+        return new DurabilityPolicy(Mode.EVERY_WRITE, 0, 1);
+    }
+
+    public static DurabilityPolicy everyMillis(long intervalMillis) {
+        if (intervalMillis < 1) {
+            throw new IllegalArgumentException("Interval must be at least 1 ms");
+        }
+        return new DurabilityPolicy(Mode.INTERVAL, intervalMillis, Integer.MAX_VALUE);
+    }
+
+    public static DurabilityPolicy everyMessages(int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        return new DurabilityPolicy(Mode.BATCH_SIZE, BATCH_MAX_WAIT_MILLIS, batchSize);
+    }
+
+    public Mode getMode() { return mode; }
+
+    public long getIntervalMillis() { return intervalMillis; }
+
+    public int getBatchSize() { return batchSize; }
+
+    @Override
+    public String toString() {
+        switch (mode) {
+            case INTERVAL:
+                return "every " + intervalMillis + " ms";
+            case BATCH_SIZE:
+                return "every " + batchSize + " messages";
+            default:
+                return "every write";
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.project.Model;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Moves message log writes off the calling thread. Stored messages are queued and a
+ * single background thread writes everything that arrives within the window set by the
+ * {@link DurabilityPolicy} with one write and one fsync. Each caller gets a future that
+ * completes once its messages are on disk.
+ *
+ * Snapshots and tombstones are queued behind the appends that came before them, so the log
+ * always sees operations in the order they were made.
+ */
+public class GroupCommitWriter implements MessageStorage {
+
+    private interface LogAction {
+        void run(MessageLog log) throws IOException;
+    }
+
+    private static final class Pending {
+        final List<Message> messages;
+        final LogAction action; // runs after this entry's messages are written, may be null
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Pending(List<Message> messages, LogAction action) {
+            this.messages = messages;
+            this.action = action;
+        }
+
+        /** Deletes and flushes have a caller blocked on them, so they end a batch early. */
+        boolean isBarrier() {
+            return action != null && messages.isEmpty();
+        }
+    }
+
+    private final MessageLog log;
+    private final DurabilityPolicy policy;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean running = true; // only set false with this writer locked
+    private int queuedSinceSnapshot;
+    // Set by the writer thread once tombstones make compaction worthwhile; the next caller
+    // queues it, since only callers can copy the live messages while they are stable.
+    private volatile boolean compactionDue;
+
+    private GroupCommitWriter(MessageLog log, DurabilityPolicy policy) {
+        this.log = log;
+        this.policy = policy;
+        this.writer = new Thread(this::runWriter, "message-writer");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * @return A writer for the log whose background thread is already running. The thread
+     *         is started here rather than in the constructor, so it never sees the writer
+     *         before it is fully built.
+     */
+    public static GroupCommitWriter start(MessageLog log, DurabilityPolicy policy) {
+        GroupCommitWriter groupCommit = new GroupCommitWriter(log, policy);
+        groupCommit.writer.start();
+        return groupCommit;
+    }
+
+    public DurabilityPolicy getPolicy() { return policy; }
+
+    public MessageLog getLog() { return log; }
+
+    @Override
+    public String getName() { return log.getName(); }
+
+    @Override
+    public boolean exists() { return log.exists(); }
+
+    @Override
+    public void load(Consumer<Message> sink) throws IOException {
+        flush();
+        log.load(sink);
+        synchronized (this) {
+            queuedSinceSnapshot = log.getRecordsSinceSnapshot();
+        }
+    }
+
+    @Override
+    public void append(List<Message> newMessages, List<Message> allMessages) throws IOException {
+        appendAsync(newMessages, allMessages);
+    }
+
+    /**
+     * Queues the messages for the background writer.
+     * @param allMessages Every message in memory; copied only when a snapshot or compaction is due.
+     * @return A future that completes once the messages have been written and synced.
+     */
+    @Override
+    public synchronized CompletableFuture<Void> appendAsync(List<Message> newMessages, List<Message> allMessages) {
+        LogAction compaction = null;
+        queuedSinceSnapshot += newMessages.size();
+        if (compactionDue || (log.getSnapshotFile() != null && queuedSinceSnapshot >= log.getSnapshotInterval())) {
+            List<Message> state = new ArrayList<>(allMessages);
+            compaction = target -> target.compactAsync(state);
+            queuedSinceSnapshot = 0;
+            compactionDue = false;
+        }
+        return enqueue(new Pending(new ArrayList<>(newMessages), compaction));
+    }
+
+    /**
+     * Queues a tombstone and waits for it. The caller is blocked meanwhile, so the log can
+     * safely read {@code remaining} if it decides to compact.
+     */
+    @Override
+    public void delete(Message deleted, List<Message> remaining) throws IOException {
+        synchronized (this) {
+            queuedSinceSnapshot++;
+        }
+        await(enqueue(new Pending(List.of(), target -> target.delete(deleted, remaining))));
+    }
+
+    /**
+     * Queues a tombstone without waiting for it. The writer thread decides whether the
+     * log is due for compaction once the tombstone is written and the dead record count is
+     * current. It never reads {@code remaining}; when compaction is due, the next append or
+     * delete copies the live messages while they are stable and queues it.
+     */
+    @Override
+    public synchronized CompletableFuture<Void> deleteAsync(Message deleted, List<Message> remaining) {
+        queuedSinceSnapshot++;
+        int live = remaining.size();
+        List<Message> state = null;
+        if (compactionDue) {
+            state = new ArrayList<>(remaining);
+            compactionDue = false;
+        }
+        List<Message> compactFrom = state;
+        return enqueue(new Pending(List.of(), target -> {
+            target.tombstone(deleted);
+            if (compactFrom != null) {
+                target.compactAsync(compactFrom);
+            } else if (target.isCompactionDue(target.getDeadRecords(), live)) {
+                compactionDue = true;
+            }
+        }));
+    }
+
+    /**
+     * Blocks until everything queued so far is on disk.
+     */
+    public void flush() throws IOException {
+        await(enqueue(new Pending(List.of(), target -> {})));
+    }
+
+    /**
+     * Writes everything queued so far and stops the writer. Entries are only queued with
+     * this writer locked and {@code running} set, so once it is cleared under the same lock
+     * nothing more can be queued, and the writer drains what was before it stops.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!running) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            synchronized (this) {
+                running = false; // the writer notices within one poll interval
+            }
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            log.close();
+        }
+    }
+
+    private synchronized CompletableFuture<Void> enqueue(Pending pending) {
+        if (!running) {
+            pending.done.completeExceptionally(new IOException(getName() + " writer is closed"));
+        } else {
+            queue.add(pending);
+        }
+        return pending.done;
+    }
+
+    private static void await(CompletableFuture<Void> future) throws IOException {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void runWriter() {
+        List<Pending> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                if (!first.isBarrier()) {
+                    collect(batch, first.messages.size());
+                }
+            } catch (InterruptedException e) {
+                queue.drainTo(batch);
+            }
+            commit(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Gathers more queued entries into the batch according to the durability policy.
+     */
+    private void collect(List<Pending> batch, int messageCount) throws InterruptedException {
+        switch (policy.getMode()) {
+            case EVERY_WRITE:
+                queue.drainTo(batch);
+                return;
+            case INTERVAL:
+            case BATCH_SIZE:
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(policy.getIntervalMillis());
+                while (messageCount < policy.getBatchSize()) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        return;
+                    }
+                    batch.add(next);
+                    messageCount += next.messages.size();
+                    if (next.isBarrier()) {
+                        return;
+                    }
+                }
+                return;
+        }
+    }
+
+    /**
+     * Writes the batch and syncs it once. If a write or action fails, the entries already
+     * written are still synced and completed; only the failed entry and those after it fail.
+     */
+    private void commit(List<Pending> batch) {
+        List<Message> toWrite = new ArrayList<>();
+        int written = 0; // entries before this one are in the log
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                Pending pending = batch.get(i);
+                toWrite.addAll(pending.messages);
+                if (pending.action != null) {
+                    log.write(toWrite);
+                    toWrite.clear();
+                    written = i;
+                    pending.action.run(log);
+                    written = i + 1;
+                }
+            }
+            log.write(toWrite);
+            written = batch.size();
+            log.sync();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error writing messages to " + getName() + ": " + e.getMessage());
+            if (written == batch.size()) {
+                written = 0; // the sync itself failed, so nothing is known to be on disk
+            } else {
+                try {
+                    log.sync();
+                } catch (IOException | RuntimeException syncFailure) {
+                    written = 0;
+                }
+            }
+            for (Pending pending : batch.subList(written, batch.size())) {
+                pending.done.completeExceptionally(e);
+            }
+        }
+        for (Pending pending : batch.subList(0, written)) {
+            pending.done.complete(null);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.project.Model;
+
+import java.util.Arrays;
+
+/**
+ * Content arena backed by one growable {@code byte[]} on the Java heap. Addresses are
+ * plain offsets into the array, so it holds at most about 2 GB.
+ */
+public class HeapContentArena implements ContentArena {
+    private static final int MAX_BYTES = Integer.MAX_VALUE - 8;
+
+    private byte[] bytes;
+    private int end;
+
+    public HeapContentArena() {
+        this(4096);
+    }
+
+    public HeapContentArena(int initialBytes) {
+        bytes = new byte[Math.max(initialBytes, 16)];
+    }
+
+    @Override
+    public long append(byte[] data) {
+        if ((long) end + data.length > MAX_BYTES) {
+            throw new IllegalStateException("Message content arena is full");
+        }
+        if (end + data.length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, (int) Math.min(MAX_BYTES, Math.max((long) bytes.length * 2, end + data.length)));
+        }
+        System.arraycopy(data, 0, bytes, end, data.length);
+        int address = end;
+        end += data.length;
+        return address;
+    }
+
+    @Override
+    public byte[] read(long address, int length) {
+        return Arrays.copyOfRange(bytes, (int) address, (int) address + length);
+    }
+
+    @Override
+    public long bytesUsed() {
+        return end;
+    }
+
+    @Override
+    public ContentArena newEmpty(long expectedBytes) {
+        return new HeapContentArena((int) Math.min(MAX_BYTES, Math.max(4096, expectedBytes)));
+    }
+}
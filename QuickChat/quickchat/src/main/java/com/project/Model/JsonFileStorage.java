@@ -0,0 +1,49 @@
+package com.project.Model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * The original storage format: one pretty printed JSON array holding every message.
+ * Every change rewrites the whole file, so this is kept for compatibility and as an
+ * export target rather than for day to day use.
+ */
+public class JsonFileStorage implements MessageStorage {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final File file;
+
+    public JsonFileStorage(File file) {
+        this.file = file;
+    }
+
+    public File getFile() { return file; }
+
+    @Override
+    public String getName() { return file.getName(); }
+
+    @Override
+    public boolean exists() { return file.exists(); }
+
+    @Override
+    public void load(Consumer<Message> sink) throws IOException {
+        StreamingJsonLoader.load(file, sink, StreamingJsonLoader.consoleProgress());
+    }
+
+    @Override
+    public void append(List<Message> newMessages, List<Message> allMessages) throws IOException {
+        write(allMessages);
+    }
+
+    @Override
+    public void delete(Message deleted, List<Message> remaining) throws IOException {
+        write(remaining);
+    }
+
+    public void write(List<Message> messages) throws IOException {
+        mapper.writerWithDefaultPrettyPrinter().writeValue(file, messages);
+    }
+}
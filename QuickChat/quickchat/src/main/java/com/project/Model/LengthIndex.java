@@ -0,0 +1,102 @@
+package com.project.Model;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Messages ordered by content length, kept up to date as messages are stored and deleted.
+ * Messages of equal length keep the order they were added in, so ties go to the earliest
+ * message. The longest message is cached, so asking for it is O(1); top-K queries walk
+ * from either end of the ordering and cost O(K). Not thread safe.
+ */
+public class LengthIndex {
+    private final TreeMap<Integer, LinkedHashSet<Message>> byLength = new TreeMap<>();
+    private Message longest;
+    private int longestLength; // kept so adds never need to read the longest message again
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public void add(Message msg) {
+        String content = msg.getContent();
+        if (content == null) {
+            return;
+        }
+        if (byLength.computeIfAbsent(content.length(), length -> new LinkedHashSet<>()).add(msg)) {
+            size++;
+            if (longest == null || content.length() > longestLength) {
+                longest = msg;
+                longestLength = content.length();
+            }
+        }
+    }
+
+    public void remove(Message msg) {
+        String content = msg.getContent();
+        if (content == null) {
+            return;
+        }
+        LinkedHashSet<Message> sameLength = byLength.get(content.length());
+        if (sameLength == null || !sameLength.remove(msg)) {
+            return;
+        }
+        size--;
+        if (sameLength.isEmpty()) {
+            byLength.remove(content.length());
+        }
+        if (msg == longest) {
+            Map.Entry<Integer, LinkedHashSet<Message>> last = byLength.lastEntry();
+            longest = last == null ? null : last.getValue().iterator().next();
+            longestLength = last == null ? 0 : last.getKey();
+        }
+    }
+
+    public void clear() {
+        byLength.clear();
+        longest = null;
+        longestLength = 0;
+        size = 0;
+    }
+
+    /**
+     * @return The message with the longest content (the earliest one on a tie), or null.
+     */
+    public Message longest() {
+        return longest;
+    }
+
+    /**
+     * @return Up to k messages, longest first.
+     */
+    public List<Message> longest(int k) {
+        return take(byLength.descendingMap(), k);
+    }
+
+    /**
+     * @return Up to k messages, shortest first.
+     */
+    public List<Message> shortest(int k) {
+        return take(byLength, k);
+    }
+
+    private static List<Message> take(NavigableMap<Integer, LinkedHashSet<Message>> ordered, int k) {
+        List<Message> result = new ArrayList<>(Math.max(0, Math.min(k, 64)));
+        Iterator<LinkedHashSet<Message>> groups = ordered.values().iterator();
+        while (result.size() < k && groups.hasNext()) {
+            for (Message msg : groups.next()) {
+                if (result.size() == k) {
+                    break;
+                }
+                result.add(msg);
+            }
+        }
+        return result;
+    }
+}
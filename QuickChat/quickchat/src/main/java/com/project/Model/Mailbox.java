@@ -0,0 +1,149 @@
+package com.project.Model;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded queue of delivered messages with many producers and one consumer.
+ *
+ * Senders never take a lock: each claims a slot in a ring buffer with one compare and
+ * set on the tail counter, writes the message and then publishes the slot by advancing
+ * its sequence number. Every slot's sequence says whose turn it is: {@code pos} when free
+ * for the producer claiming position {@code pos}, {@code pos + 1} once filled, and
+ * {@code pos + capacity} once the consumer has emptied it for the next lap. A full
+ * mailbox is seen by a producer as a slot still waiting for the consumer, so
+ * {@link #offer(Message)} fails at once instead of growing the queue.
+ *
+ * Draining is synchronized so that only one reader consumes at a time; producers never
+ * wait for it.
+ */
+public class Mailbox {
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicReferenceArray<Message> slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head; // written by the consumer only
+
+    /**
+     * @param capacity Most messages held before senders are refused; rounded up to a
+     *                 power of two.
+     */
+    public Mailbox(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+        slots = new AtomicReferenceArray<>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.setPlain(i, i);
+        }
+        mask = size - 1;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return The number of messages waiting, counting removed ones until the next drain;
+     *         exact only when nobody is sending.
+     */
+    public int size() {
+        return (int) Math.max(0, Math.min(capacity(), tail.get() - head));
+    }
+
+    /**
+     * Adds a message without blocking.
+     * @return false if the mailbox is full.
+     */
+    public boolean offer(Message msg) {
+        long pos = tail.get();
+        while (true) {
+            int i = (int) (pos & mask);
+            long diff = sequences.getAcquire(i) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    slots.setPlain(i, msg);
+                    sequences.setRelease(i, pos + 1);
+                    return true;
+                }
+                pos = tail.get(); // another sender took this slot
+            } else if (diff < 0) {
+                return false; // the consumer has not emptied this slot yet
+            } else {
+                pos = tail.get(); // fell behind other senders
+            }
+        }
+    }
+
+    /**
+     * Adds a message, waiting up to the timeout for the reader to make room. This is the
+     * back-pressure on senders to a recipient who is not keeping up.
+     * @return false if the mailbox stayed full for the whole timeout.
+     */
+    public boolean offer(Message msg, long timeout, TimeUnit unit) {
+        if (offer(msg)) {
+            return true;
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        long backoff = 1_000;
+        while (System.nanoTime() - deadline < 0) {
+            LockSupport.parkNanos(Math.min(backoff, deadline - System.nanoTime()));
+            if (offer(msg)) {
+                return true;
+            }
+            backoff = Math.min(backoff * 2, MAX_BACKOFF_NANOS);
+        }
+        return false;
+    }
+
+    /**
+     * Moves every published message into the collection, oldest first.
+     * @return The number of messages moved.
+     */
+    public synchronized int drainTo(Collection<? super Message> target) {
+        long pos = head;
+        int moved = 0;
+        while (true) {
+            int i = (int) (pos & mask);
+            if (sequences.getAcquire(i) != pos + 1) {
+                break; // empty, or the next sender has claimed the slot but not filled it
+            }
+            Message msg = slots.getPlain(i);
+            if (msg != null) { // null if removed
+                target.add(msg);
+                moved++;
+            }
+            slots.setPlain(i, null);
+            sequences.setRelease(i, pos + mask + 1);
+            pos++;
+        }
+        head = pos;
+        return moved;
+    }
+
+    /**
+     * Takes a waiting message out without draining the rest. Its slot is only freed by
+     * the next drain, which skips it. A message a sender has claimed a slot for but not
+     * published yet is not found.
+     * @return false if the message is not waiting in this mailbox.
+     */
+    public synchronized boolean remove(Message msg) {
+        for (long pos = head; ; pos++) {
+            int i = (int) (pos & mask);
+            if (sequences.getAcquire(i) != pos + 1) {
+                return false;
+            }
+            if (slots.compareAndSet(i, msg, null)) {
+                return true;
+            }
+        }
+    }
+}
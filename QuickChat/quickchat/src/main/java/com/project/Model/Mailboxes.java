@@ -0,0 +1,121 @@
+package com.project.Model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers sent messages to their recipients. Every user has an inbox: a bounded
+ * {@link Mailbox} that senders add to without locking, and the messages the user has
+ * already read. Reading an inbox only touches that user's messages, so it costs the size
+ * of the inbox rather than the number of messages stored.
+ *
+ * A mailbox holds at most {@code capacity} unread messages. Once full, senders wait up to
+ * the delivery timeout for the recipient to read, then give up.
+ *
+ * Inboxes are found by the recipient's phone number in canonical form, see
+ * {@link RecipientIndex#canonicalKey}, so "+27831234567" and "0831234567" share one and
+ * a user object read back after a restart finds the same inbox. Inboxes live in memory:
+ * {@link #restore} refills them from the stored messages after a load, and
+ * {@link #remove} takes deleted messages out, straight from the read list or the mailbox,
+ * so nothing is kept for recipients who never read.
+ */
+public class Mailboxes {
+    public static final int DEFAULT_CAPACITY = 256;
+    public static final long DEFAULT_TIMEOUT_MILLIS = 2000;
+
+    private static final class Inbox {
+        final Mailbox unread;
+        final List<Message> read = new ArrayList<>(); // guarded by this
+
+        Inbox(int capacity) {
+            unread = new Mailbox(capacity);
+        }
+    }
+
+    private final Map<String, Inbox> inboxes = new ConcurrentHashMap<>();
+    private final int capacity;
+    private final long timeoutMillis;
+
+    public Mailboxes() {
+        this(DEFAULT_CAPACITY, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    public Mailboxes(int capacity, long timeoutMillis) {
+        this.capacity = capacity;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Puts a message in the recipient's mailbox, waiting for room if it is full.
+     * @return false if the mailbox stayed full for the whole delivery timeout.
+     */
+    public boolean deliver(User recipient, Message msg) {
+        return inbox(recipient.getPhoneNumber()).unread.offer(msg, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Files a message delivered before a restart as already read, without checking the
+     * capacity.
+     */
+    public void restore(Message msg) {
+        Inbox inbox = inbox(msg.getRecipient());
+        synchronized (inbox) {
+            inbox.read.add(msg);
+        }
+    }
+
+    /**
+     * Takes a deleted message out of its recipient's inbox, read or not.
+     */
+    public void remove(Message msg) {
+        Inbox inbox = inboxes.get(key(msg.getRecipient()));
+        if (inbox == null) {
+            return;
+        }
+        synchronized (inbox) {
+            if (!inbox.read.remove(msg)) {
+                inbox.unread.remove(msg);
+            }
+        }
+    }
+
+    /**
+     * Empties every inbox.
+     */
+    public void clear() {
+        inboxes.clear();
+    }
+
+    /**
+     * @return Every message delivered to the user, oldest first. Unread messages are
+     *         marked read, which makes room for new deliveries.
+     */
+    public List<Message> receivedBy(User recipient) {
+        Inbox inbox = inboxes.get(key(recipient.getPhoneNumber()));
+        if (inbox == null) {
+            return List.of();
+        }
+        synchronized (inbox) {
+            inbox.unread.drainTo(inbox.read);
+            return List.copyOf(inbox.read);
+        }
+    }
+
+    /** @return The number of messages delivered to the user but not read yet. */
+    public int unreadCount(User recipient) {
+        Inbox inbox = inboxes.get(key(recipient.getPhoneNumber()));
+        return inbox == null ? 0 : inbox.unread.size();
+    }
+
+    private Inbox inbox(String phoneNumber) {
+        return inboxes.computeIfAbsent(key(phoneNumber), k -> new Inbox(capacity));
+    }
+
+    private static String key(String phoneNumber) {
+        long canonical = RecipientIndex.canonicalKey(phoneNumber);
+        return canonical >= 0 ? Long.toString(canonical) : String.valueOf(phoneNumber);
+    }
+}
@@ -1,30 +1,49 @@
 package com.project.Model;
 
+import java.io.BufferedWriter;
+import java.io.CharArrayWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.invoke.VarHandle;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.util.*;
-import java.util.stream.Collectors;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 public class Message {
     private static final String FILE_NAME = "messages.json";
+    private static final int STREAM_BUFFER_CHARS = 8192;
 
-    private static List<Message> allMessagesInMemory = new ArrayList<>();
-    private static List<Message> sentMessages = new ArrayList<>();
-    private static List<Message> disregardedMessages = new ArrayList<>();
-    private static List<Message> storedMessages = new ArrayList<>();
-    private static List<String> messageHashes = new ArrayList<>();
-    private static List<String> messageIDs = new ArrayList<>();
+    // Every message in memory and its indexes; the static methods below work on this store.
+    private static final MessageStore store = new MessageStore(new JsonFileStorage(new File(FILE_NAME)));
+    // Unique IDs for new messages; run separate instances with different -Dquickchat.node values.
+    private static final MessageIdAllocator idAllocator = new MessageIdAllocator(Integer.getInteger("quickchat.node", 0));
+    // Each user's received messages, filled as messages are sent to them and refilled on load.
+    private static final Mailboxes mailboxes = new Mailboxes();
 
     private String messageID;
     private String sender;     
     private String recipient;
     private String content;
     private String flag;
+    private MessageStatus status;
     private int MessageNumber;
     private String hash;
+    int slot = -1; // document number in the content index, -1 when not indexed
+    long storageKey = -1; // the storage backend's record of the message, -1 if unknown
+    volatile MessageColumns.Binding binding; // set while the fields live in a column store
+    MessageStore owner; // set while the message is stored
 
     public Message() {}
 
@@ -32,49 +51,188 @@ public class Message {
         this.sender = senderCell;
         this.recipient = recipientCell;
         this.content = content;
+        this.messageID = newMessageID();
 
-        Random random = new Random();
-        long min = 1_000_000_000L;
-        long max = 9_999_999_999L;
-        this.messageID = String.valueOf(min + (long)(random.nextDouble() * (max - min + 1)));
+        setFlag(flag);
+    }
 
-        this.flag = flag;
-        this.hash = createMessageHash();
+    /**
+     * @return A fresh ten digit message ID, unique among the messages in memory.
+     */
+    public static String newMessageID() {
+        return String.valueOf(idAllocator.next());
+    }
+
+    static MessageIdAllocator getIdAllocator() {
+        return idAllocator;
+    }
+
+    public String getMessageID() { return read(MessageColumns.Binding::messageID, m -> m.messageID); }
+    public void setMessageID(String messageID) {
+        change(() -> {
+            MessageColumns.Binding b = binding;
+            if (b == null || !b.columns().setMessageID(b, messageID)) {
+                this.messageID = messageID;
+            }
+            this.hash = null;
+        });
+    }
+
+    public String getSender() { return read(MessageColumns.Binding::sender, m -> m.sender); }
+    public void setSender(String sender) {
+        change(() -> {
+            MessageColumns.Binding b = binding;
+            if (b == null || !b.columns().setSender(b, sender)) {
+                this.sender = sender;
+            }
+        });
+    }
+
+    public String getRecipient() { return read(MessageColumns.Binding::recipient, m -> m.recipient); }
+    public void setRecipient(String recipient) {
+        change(() -> {
+            MessageColumns.Binding b = binding;
+            if (b == null || !b.columns().setRecipient(b, recipient)) {
+                this.recipient = recipient;
+            }
+        });
     }
 
-    public String getMessageID() { return messageID; }
-    public void setMessageID(String messageID) { this.messageID = messageID; }
+    public String getContent() { return read(MessageColumns.Binding::content, m -> m.content); }
+    public void setContent(String content) {
+        change(() -> {
+            MessageColumns.Binding b = binding;
+            if (b == null || !b.columns().setContent(b, content)) {
+                this.content = content;
+            }
+            this.hash = null;
+        });
+    }
 
-    public String getSender() { return sender; }
-    public void setSender(String sender) { this.sender = sender; }
+    public String getFlag() { return read(MessageColumns.Binding::flag, m -> m.flag); }
 
-    public String getRecipient() { return recipient; }
-    public void setRecipient(String recipient) { this.recipient = recipient; }
+    /**
+     * Sets the status text. If the message is already in memory it moves to the new
+     * status's list straight away; the change is not written to storage.
+     */
+    public void setFlag(String flag) {
+        MessageStatus previous = status;
+        MessageColumns.Binding b = binding;
+        if (b == null || !b.columns().setFlag(b, flag)) {
+            this.flag = flag;
+        }
+        this.status = MessageStatus.fromFlag(flag);
+        MessageStore owner = this.owner;
+        if (previous != status && owner != null) {
+            owner.statusChanged(this, previous);
+        }
+    }
 
-    public String getContent() { return content; }
-    public void setContent(String content) { this.content = content; }
+    /**
+     * @return The typed form of the flag, or null if the flag is not a known status.
+     */
+    @JsonIgnore
+    public MessageStatus getStatus() { return status; }
 
-    public String getFlag() { return flag; }
-    public void setFlag(String flag) { this.flag = flag; }
+    /**
+     * Reads a field from the column store while bound, otherwise from the message. Binding
+     * publishes the handle before clearing the fields, and unbinding restores the fields
+     * before clearing the handle, so a null field with a handle now set, or a handle that
+     * has gone stale, just means the message moved meanwhile and is read again.
+     */
+    private String read(Function<MessageColumns.Binding, String> column, Function<Message, String> field) {
+        while (true) {
+            MessageColumns.Binding b = binding;
+            if (b != null) {
+                String value = column.apply(b);
+                if (value != MessageColumns.STALE) {
+                    return value;
+                }
+            }
+            String value = field.apply(this);
+            VarHandle.acquireFence();
+            if (value != null || binding == null) {
+                return value;
+            }
+        }
+    }
+
+    /** Called by {@link MessageColumns#bind} with the column store's lock held. */
+    void bindTo(MessageColumns.Binding binding) {
+        this.binding = binding;
+        VarHandle.releaseFence();
+        this.messageID = null;
+        this.sender = null;
+        this.recipient = null;
+        this.content = null;
+        this.flag = null;
+        this.hash = null;
+    }
+
+    /** Called by {@link MessageColumns#unbind} with the column store's lock held. */
+    void unbindFrom(String messageID, String sender, String recipient, String content, String flag) {
+        this.messageID = messageID;
+        this.sender = sender;
+        this.recipient = recipient;
+        this.content = content;
+        this.flag = flag;
+        this.binding = null;
+    }
 
     public int getMessageNumber() { return MessageNumber; }
-    public void setMessageNumber(int MessageNumber) { this.MessageNumber = MessageNumber; }
+    public void setMessageNumber(int MessageNumber) {
+        change(() -> {
+            this.MessageNumber = MessageNumber;
+            this.hash = null;
+        });
+    }
+
+    /**
+     * Applies a change to an indexed field. A stored message is re-filed in its store's
+     * indexes, the same way {@link #setFlag} moves it between statuses; the change is
+     * not written to storage.
+     */
+    private void change(Runnable write) {
+        MessageStore owner = this.owner;
+        if (owner != null) {
+            owner.fieldsChanged(this, write);
+        } else {
+            write.run();
+        }
+    }
 
+    /**
+     * Returns the message hash, computing it on first use. The cached value is dropped
+     * whenever the message ID, message number or content changes. A message bound to a
+     * column store computes it on every call instead, since the hash holds the content.
+     * Hashes read from JSON are ignored, since message numbers are reassigned on load.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     public String getHash() {
-        // Always generate the hash dynamically to keep it up to date
-        return createMessageHash();
+        String cached = hash;
+        if (cached == null) {
+            cached = createMessageHash();
+            if (binding == null) {
+                hash = cached;
+            }
+        }
+        return cached;
     }
 
+    /**
+     * Overrides the cached hash until the message ID, message number or content next change.
+     */
     public void setHash(String hash) {
         this.hash = hash;
     }
 
     public boolean checkMessageID() {
+        String messageID = getMessageID();
         return messageID != null && messageID.matches("\\d{10}");
     }
 
     public boolean checkRecipientCell() {
-        return recipient != null && (recipient.matches("^\\+27\\d{9}$") || recipient.matches("^0[6-8]\\d{8}$"));
+        return ValidationEngine.cellNumber(getRecipient()).isValid();
     }
 
     /**
@@ -85,22 +243,39 @@ public class Message {
      * @return The custom formatted message hash string.
      */
     public String createMessageHash() {
+        String messageID = getMessageID();
+        String content = getContent();
         String firstTwo = (messageID != null && messageID.length() >= 2) ? messageID.substring(0, 2) : "XX";
         String msgNum = String.valueOf(this.MessageNumber);
-        String contentPart = (content != null) ? content.replaceAll("\\s+", "").toUpperCase() : "";
+        String contentPart = (content != null) ? stripWhitespace(content).toUpperCase() : "";
         return firstTwo + ":" + msgNum + ":" + contentPart;
     }
 
+    /** Same result as {@code replaceAll("\\s+", "")} without compiling a pattern per call. */
+    private static String stripWhitespace(String text) {
+        StringBuilder sb = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            boolean whitespace = c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+            if (whitespace && sb == null) {
+                sb = new StringBuilder(text.length()).append(text, 0, i);
+            } else if (!whitespace && sb != null) {
+                sb.append(c);
+            }
+        }
+        return sb == null ? text : sb.toString();
+    }
+
     public String sentMessage(String option) {
         switch (option.toLowerCase()) {
             case "send":
-                this.setFlag("Sent");
+                this.setFlag(MessageStatus.SENT.getLabel());
                 return "Message sent.";
             case "store":
-                this.setFlag("Stored");
+                this.setFlag(MessageStatus.STORED.getLabel());
                 return "Message stored.";
             case "discard":
-                this.setFlag("Disregard");
+                this.setFlag(MessageStatus.DISREGARD.getLabel());
                 return "Message discarded.";
             default:
                 return "Invalid option. Message status not set.";
@@ -108,255 +283,532 @@ public class Message {
     }
 
     public static String printMessages(List<Message> messages) {
-        StringBuilder sb = new StringBuilder();
+        return render(out -> printMessages(messages, out));
+    }
+
+    /**
+     * Writes one line per message as it goes, instead of building the whole listing first.
+     * The writer is flushed but not closed.
+     */
+    public static void printMessages(List<Message> messages, Writer writer) throws IOException {
+        Writer out = buffered(writer);
         if (messages == null || messages.isEmpty()) {
-            return "No messages to display.";
+            out.write("No messages to display.");
+        } else {
+            for (Message m : messages) {
+                out.append("From: ").append(m.getSender())
+                   .append(" | To: ").append(m.getRecipient())
+                   .append(" | Message: \"").append(m.getContent()).append("\"")
+                   .append(" | Status: ").append(m.getFlag())
+                   .append(" | ID: ").append(m.getMessageID());
+                String hash = m.getHash();
+                if (hash != null) {
+                    out.append(" | Hash: ").append(hash);
+                }
+                out.write('\n');
+            }
         }
-        for (Message m : messages) {
-            sb.append("From: ").append(m.getSender())
-              .append(" | To: ").append(m.getRecipient())
-              .append(" | Message: \"").append(m.getContent()).append("\"")
-              .append(" | Status: ").append(m.getFlag())
-              .append(" | ID: ").append(m.getMessageID());
-            String hash = m.createMessageHash();
-            if (hash != null) {
-                sb.append(" | Hash: ").append(hash);
+        out.flush();
+    }
+
+    public static void printMessages(List<Message> messages, OutputStream out) throws IOException {
+        printMessages(messages, writerFor(out));
+    }
+
+    /** Writes a report or listing to the given writer. */
+    private interface Report {
+        void writeTo(Writer out) throws IOException;
+    }
+
+    private static String render(Report report) {
+        StringWriter out = new StringWriter();
+        try {
+            report.writeTo(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // a StringWriter never throws
+        }
+        return out.toString();
+    }
+
+    /**
+     * Puts an {@value #STREAM_BUFFER_CHARS} character buffer in front of the writer, so a
+     * listing costs one buffer however long it is, unless the writer buffers already.
+     */
+    private static Writer buffered(Writer out) {
+        if (out instanceof BufferedWriter || out instanceof StringWriter || out instanceof CharArrayWriter
+                || out instanceof OutputStreamWriter || out instanceof PrintStreamWriter) {
+            return out; // an OutputStreamWriter buffers the bytes it encodes
+        }
+        return new BufferedWriter(out, STREAM_BUFFER_CHARS);
+    }
+
+    /**
+     * A writer for the stream. A {@link PrintStream} such as System.out is written to
+     * directly, through its own buffer and encoding; other streams get UTF-8.
+     */
+    private static Writer writerFor(OutputStream out) {
+        return out instanceof PrintStream print ? new PrintStreamWriter(print) : new OutputStreamWriter(out, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes text straight to a print stream, which already buffers and encodes it, so a
+     * listing sent to System.out allocates no buffer of its own.
+     */
+    private static final class PrintStreamWriter extends Writer {
+        private final PrintStream out;
+
+        PrintStreamWriter(PrintStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int c) {
+            out.print((char) c);
+        }
+
+        @Override
+        public void write(String str, int off, int len) {
+            out.print(off == 0 && len == str.length() ? str : str.substring(off, off + len));
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            out.print(off == 0 && len == cbuf.length ? cbuf : Arrays.copyOfRange(cbuf, off, off + len));
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (out.checkError()) { // flushes, and reports what the stream swallowed
+                throw new IOException("Error writing to the print stream");
             }
-            sb.append("\n");
         }
-        return sb.toString();
+
+        @Override
+        public void close() throws IOException {
+            flush(); // the stream belongs to the caller
+        }
     }
 
     public static int returnTotalMessages() {
-        return allMessagesInMemory.size();
+        return store.size();
     }
 
-    public static void loadMessagesFromJson() {
-        ObjectMapper mapper = new ObjectMapper();
-        File file = new File(FILE_NAME);
-
-        allMessagesInMemory.clear();
-        sentMessages.clear();
-        disregardedMessages.clear();
-        storedMessages.clear();
-        messageHashes.clear();
-        messageIDs.clear();
-
-        if (file.exists()) {
-            try {
-                Message[] existingMessagesArray = mapper.readValue(file, Message[].class);
-                for (int i = 0; i < existingMessagesArray.length; i++) {
-                    Message msg = existingMessagesArray[i];
-                    msg.setMessageNumber(i); // Assign MessageNumber based on order in file
-                    msg.setHash(msg.createMessageHash()); // Ensure hash is set/updated
-                    allMessagesInMemory.add(msg);
-
-                    messageIDs.add(msg.getMessageID());
-
-                    String hash = msg.getHash();
-                    if (hash != null) {
-                        messageHashes.add(hash);
-                    }
-
-                    switch (msg.getFlag().toLowerCase()) {
-                        case "sent":
-                            sentMessages.add(msg);
-                            break;
-                        case "stored":
-                            storedMessages.add(msg);
-                            break;
-                        case "disregard":
-                            disregardedMessages.add(msg);
-                            break;
-                    }
-                }
-                System.out.println("Messages loaded successfully from " + FILE_NAME + ". Total: " + allMessagesInMemory.size());
-            } catch (IOException e) {
-                System.err.println("Error reading existing messages from " + FILE_NAME + ": " + e.getMessage());
-            }
-        } else {
-            System.out.println("No existing messages file found (" + FILE_NAME + "). Starting with empty message lists.");
+    /**
+     * @return The store behind the static message operations. Safe to use from any thread.
+     */
+    public static MessageStore getStore() {
+        return store;
+    }
+
+    /**
+     * @return The users' inboxes.
+     */
+    public static Mailboxes getMailboxes() {
+        return mailboxes;
+    }
+
+    /**
+     * Delivers a sent message to the recipient's inbox. Call once the message has been
+     * stored, so a recipient never reads a message that was not saved. If the inbox stays
+     * full for the delivery timeout, the message is marked as stored instead so it can be
+     * sent later; like other status changes that is not written to storage.
+     * @return The outcome to show the sender.
+     */
+    public static String deliverMessage(User recipient, Message msg) {
+        if (msg.getStatus() != MessageStatus.SENT) {
+            return null;
         }
+        if (mailboxes.deliver(recipient, msg)) {
+            return "Delivered to " + recipient.getUsername() + ".";
+        }
+        msg.setFlag(MessageStatus.STORED.getLabel());
+        return "Recipient's inbox is full. Message stored to send later.";
     }
 
-    public static void storeMessage(List<Message> newMessages) {
-        ObjectMapper mapper = new ObjectMapper();
+    /**
+     * @return Every message delivered to the user, oldest first.
+     */
+    public static List<Message> getReceivedMessages(User recipient) {
+        return mailboxes.receivedBy(recipient);
+    }
 
-        for (Message msg : newMessages) {
-            msg.setMessageNumber(allMessagesInMemory.size()); // Current size is its new index
-            msg.setHash(msg.createMessageHash()); // Ensure hash is set/updated
-            allMessagesInMemory.add(msg);
+    /**
+     * @return A publisher of the sent messages stored for this recipient from now on,
+     *         pushed in batches as the subscriber asks for them.
+     */
+    public static Flow.Publisher<List<Message>> subscribeToRecipient(String recipientPhoneNumber) {
+        return store.getFeed().forRecipient(recipientPhoneNumber);
+    }
 
-            messageIDs.add(msg.getMessageID());
-            String hash = msg.getHash();
-            if (hash != null) {
-                messageHashes.add(hash);
-            }
+    /**
+     * @return Running statistics over the messages in memory.
+     */
+    public static MessageStats getStats() {
+        return store.getStats();
+    }
 
-            switch (msg.getFlag().toLowerCase()) {
-                case "sent":
-                    sentMessages.add(msg);
-                    break;
-                case "stored":
-                    storedMessages.add(msg);
-                    break;
-                case "disregard":
-                    disregardedMessages.add(msg);
-                    break;
-            }
+    /**
+     * Switches the persistence backend used by load, store and delete.
+     * The previous backend is closed. Call {@link #loadMessagesFromJson()} afterwards
+     * to read the new backend's contents into memory.
+     */
+    public static void useStorage(MessageStorage newStorage) {
+        try {
+            store.useStorage(newStorage);
+        } catch (IOException e) {
+            System.err.println("Error closing the previous message storage: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Turns the columnar store on or off. While it is on, the fields of messages in memory
+     * live in a {@link MessageColumns} store and the Message objects are thin handles onto
+     * it, which takes a fraction of the heap for large histories. Accessors behave the same
+     * either way. Content stays on the heap.
+     */
+    public static void useColumnarStore(boolean enabled) {
+        useColumnarStore(enabled, false);
+    }
+
+    /**
+     * Turns the columnar store on or off, choosing where message content is kept.
+     * @param offHeap Keep content in direct memory ({@link OffHeapContentArena}) so it
+     *                adds nothing to the garbage collected heap; it is decoded only when
+     *                {@link #getContent()} is called.
+     */
+    public static void useColumnarStore(boolean enabled, boolean offHeap) {
+        store.useColumnarStore(enabled, offHeap);
+    }
+
+    public static MessageStorage getStorage() {
+        return store.getStorage();
+    }
+
+    /**
+     * Flushes and closes the storage backend. Call once on exit.
+     */
+    public static void closeStorage() {
+        try {
+            store.close();
+        } catch (IOException e) {
+            System.err.println("Error closing " + store.getStorage().getName() + ": " + e.getMessage());
         }
+    }
 
-        File file = new File(FILE_NAME);
+    public static void loadMessagesFromJson() {
+        String storageName = store.getStorage().getName();
         try {
-            mapper.writerWithDefaultPrettyPrinter().writeValue(file, allMessagesInMemory);
-            System.out.println("Messages saved to " + FILE_NAME + ". Total messages in file: " + allMessagesInMemory.size());
+            int loaded = store.load();
+            mailboxes.clear();
+            for (Message msg : store.snapshot().withStatus(MessageStatus.SENT)) {
+                mailboxes.restore(msg);
+            }
+            if (loaded >= 0) {
+                System.out.println("Messages loaded successfully from " + storageName + ". Total: " + loaded);
+            } else {
+                System.out.println("No existing messages file found (" + storageName + "). Starting with empty message lists.");
+            }
         } catch (IOException e) {
-            System.err.println("Error saving messages to " + FILE_NAME + ": " + e.getMessage());
+            System.err.println("Error reading existing messages from " + storageName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes every message in memory to a pretty printed JSON array, the format
+     * messages.json has always used.
+     */
+    public static void exportMessagesToJson(File target) throws IOException {
+        new JsonFileStorage(target).write(store.snapshot().messages());
+    }
+
+    public static void storeMessage(List<Message> newMessages) {
+        CompletableFuture<Void> written = storeMessageAsync(newMessages);
+        if (written.isDone() && !written.isCompletedExceptionally()) {
+            System.out.println("Messages saved to " + store.getStorage().getName() + ". Total messages in file: " + store.size());
         }
     }
 
+    /**
+     * Adds the messages to memory and hands them to the storage backend.
+     * With a {@link GroupCommitWriter} the write happens in the background.
+     * @return A future that completes once the messages are on disk.
+     */
+    public static CompletableFuture<Void> storeMessageAsync(List<Message> newMessages) {
+        String storageName = store.getStorage().getName();
+        return store.storeAsync(newMessages).whenComplete((ignored, e) -> {
+            if (e != null) {
+                System.err.println("Error saving messages to " + storageName + ": " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * @return A read-only snapshot of the sent messages, in the order they were stored.
+     */
     public static List<Message> getSentMessages() {
-        return new ArrayList<>(sentMessages);
+        return store.snapshot().withStatus(MessageStatus.SENT);
     }
 
+    /**
+     * @return A read-only snapshot of the disregarded messages, in the order they were stored.
+     */
     public static List<Message> getDisregardedMessages() {
-        return new ArrayList<>(disregardedMessages);
+        return store.snapshot().withStatus(MessageStatus.DISREGARD);
     }
 
+    /**
+     * @return A read-only snapshot of the stored messages, in the order they were stored.
+     */
     public static List<Message> getStoredMessages() {
-        return new ArrayList<>(storedMessages);
+        return store.snapshot().withStatus(MessageStatus.STORED);
+    }
+
+    /**
+     * @return A read-only snapshot of the messages with the given status.
+     */
+    public static List<Message> getMessagesByStatus(MessageStatus status) {
+        return store.snapshot().withStatus(status);
     }
 
     public static List<String> getMessageHashes() {
-        return new ArrayList<>(messageHashes);
+        List<Message> messages = store.snapshot().messages();
+        List<String> hashes = new ArrayList<>(messages.size());
+        for (Message m : messages) {
+            hashes.add(m.getHash());
+        }
+        return hashes;
     }
 
     public static List<String> getMessageIDs() {
-        return new ArrayList<>(messageIDs);
+        List<Message> messages = store.snapshot().messages();
+        List<String> ids = new ArrayList<>(messages.size());
+        for (Message m : messages) {
+            ids.add(m.getMessageID());
+        }
+        return ids;
     }
 
+    /**
+     * @return A read-only snapshot of every message in memory, in the order they were stored.
+     */
     public static List<Message> getMessages() {
-        return new ArrayList<>(allMessagesInMemory);
+        return store.snapshot().messages();
     }
 
     public static String displaySentMessagesDetails() {
-        if (sentMessages.isEmpty()) {
-            return "No sent messages to display.";
-        }
-        StringBuilder sb = new StringBuilder("\n--- All Sent Messages ---\n");
-        for (Message m : sentMessages) {
-            sb.append("Sender: ").append(m.getSender())
-              .append(", Recipient: ").append(m.getRecipient())
-              .append(", Message: \"").append(m.getContent()).append("\"\n");
+        return render(Message::displaySentMessagesDetails);
+    }
+
+    /**
+     * Streams {@link #displaySentMessagesDetails()} to the writer, which is flushed but not closed.
+     */
+    public static void displaySentMessagesDetails(Writer writer) throws IOException {
+        Writer out = buffered(writer);
+        List<Message> sent = getSentMessages();
+        if (sent.isEmpty()) {
+            out.write("No sent messages to display.");
+        } else {
+            out.write("\n--- All Sent Messages ---\n");
+            for (Message m : sent) {
+                out.append("Sender: ").append(m.getSender())
+                   .append(", Recipient: ").append(m.getRecipient())
+                   .append(", Message: \"").append(m.getContent()).append("\"\n");
+            }
         }
-        return sb.toString();
+        out.flush();
+    }
+
+    public static void displaySentMessagesDetails(OutputStream out) throws IOException {
+        displaySentMessagesDetails(writerFor(out));
     }
 
     public static String getLongestMessageContent() {
-        if (allMessagesInMemory.isEmpty()) {
+        if (store.size() == 0) {
             return "No messages available to determine the longest.";
         }
-        Message longest = null;
-        for (Message m : allMessagesInMemory) {
-            if (m.getContent() != null && (longest == null || m.getContent().length() > longest.getContent().length())) {
-                longest = m;
-            }
-        }
+        Message longest = store.longest();
         return longest != null ? longest.getContent() : "No messages with content found.";
     }
 
+    /**
+     * @return Up to k messages with the longest content, longest first.
+     */
+    public static List<Message> getLongestMessages(int k) {
+        return store.longest(k);
+    }
+
+    /**
+     * @return Up to k messages with the shortest content, shortest first.
+     */
+    public static List<Message> getShortestMessages(int k) {
+        return store.shortest(k);
+    }
+
     public static String searchMessageById(String messageId) {
         if (messageId == null || messageId.trim().isEmpty()) {
             return "Message ID cannot be empty.";
         }
-        for (Message m : allMessagesInMemory) {
-            if (m.getMessageID().equals(messageId.trim())) {
-                return "Message Found (ID: " + messageId + ")\n" +
-                       "Recipient: " + m.getRecipient() + "\n" +
-                       "Message: \"" + m.getContent() + "\"";
-            }
+        Message m = findMessageById(messageId.trim());
+        if (m != null) {
+            return "Message Found (ID: " + messageId + ")\n" +
+                   "Recipient: " + m.getRecipient() + "\n" +
+                   "Message: \"" + m.getContent() + "\"";
         }
         return "Message with ID '" + messageId + "' not found.";
     }
 
+    /**
+     * Looks a message up by ID in constant time through the ID index. IDs that are not
+     * plain numbers (never generated by this class) fall back to a scan.
+     * @return The first stored message with this ID, or null.
+     */
+    public static Message findMessageById(String messageId) {
+        return store.findById(messageId);
+    }
+
+    /**
+     * Looks a message up by its hash through the hash index.
+     * @return The first stored message with this hash, or null.
+     */
+    public static Message findMessageByHash(String messageHash) {
+        return messageHash == null ? null : store.findByHash(messageHash);
+    }
+
+    /**
+     * Turns a numeric message ID into its index key.
+     * @return The ID as a long, or -1 if it is not a plain number of up to 18 digits.
+     */
+    static long idKey(String messageId) {
+        if (messageId == null || messageId.isEmpty() || messageId.length() > 18) {
+            return -1;
+        }
+        long key = 0;
+        for (int i = 0; i < messageId.length(); i++) {
+            char c = messageId.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            key = key * 10 + (c - '0');
+        }
+        // Leading zeros would make "0123" and "123" collide, so keep those out of the index.
+        return messageId.length() > 1 && messageId.charAt(0) == '0' ? -1 : key;
+    }
+
     public static String searchMessagesByRecipient(String recipientPhoneNumber) {
+        return render(out -> searchMessagesByRecipient(recipientPhoneNumber, out));
+    }
+
+    /**
+     * Streams {@link #searchMessagesByRecipient(String)} to the writer, which is flushed but not closed.
+     */
+    public static void searchMessagesByRecipient(String recipientPhoneNumber, Writer writer) throws IOException {
+        Writer out = buffered(writer);
         if (recipientPhoneNumber == null || recipientPhoneNumber.trim().isEmpty()) {
-            return "Recipient phone number cannot be empty.";
+            out.write("Recipient phone number cannot be empty.");
+            out.flush();
+            return;
         }
-        List<Message> found = allMessagesInMemory.stream()
-            .filter(m -> m.getRecipient().equals(recipientPhoneNumber.trim()) &&
-                         (m.getFlag().equalsIgnoreCase("Sent") || m.getFlag().equalsIgnoreCase("Stored")))
-            .collect(Collectors.toList());
+        // "+27..." and "0..." forms of the same number find the same messages.
+        List<Message> found = store.findByRecipient(recipientPhoneNumber.trim(), MessageStatus.SENT, MessageStatus.STORED);
 
         if (found.isEmpty()) {
-            return "No sent or stored messages found for recipient '" + recipientPhoneNumber + "'.";
+            out.write("No sent or stored messages found for recipient '" + recipientPhoneNumber + "'.");
+        } else {
+            out.write("\n--- Messages for Recipient " + recipientPhoneNumber + " ---\n");
+            for (Message m : found) {
+                out.append("Status: ").append(m.getFlag())
+                   .append(", Message: \"").append(m.getContent()).append("\"\n");
+            }
         }
+        out.flush();
+    }
+
+    public static void searchMessagesByRecipient(String recipientPhoneNumber, OutputStream out) throws IOException {
+        searchMessagesByRecipient(recipientPhoneNumber, writerFor(out));
+    }
 
-        StringBuilder sb = new StringBuilder("\n--- Messages for Recipient " + recipientPhoneNumber + " ---\n");
+    /**
+     * Finds messages by the words in their content. Words next to each other must all
+     * appear, OR separates alternatives and a trailing * matches a prefix,
+     * e.g. "cake AND late OR gate*". Matching ignores case and punctuation.
+     */
+    public static String searchMessagesByKeyword(String query) {
+        if (query == null || query.trim().isEmpty()) {
+            return "Search keywords cannot be empty.";
+        }
+        List<Message> found = findMessagesByKeyword(query);
+        if (found.isEmpty()) {
+            return "No messages found matching '" + query.trim() + "'.";
+        }
+        StringBuilder sb = new StringBuilder("\n--- Messages matching \"" + query.trim() + "\" ---\n");
         for (Message m : found) {
-            sb.append("Status: ").append(m.getFlag())
+            sb.append("ID: ").append(m.getMessageID())
+              .append(", Recipient: ").append(m.getRecipient())
+              .append(", Status: ").append(m.getFlag())
               .append(", Message: \"").append(m.getContent()).append("\"\n");
         }
         return sb.toString();
     }
 
+    /**
+     * @return The messages matching a keyword query (see {@link #searchMessagesByKeyword}),
+     *         in the order they were stored.
+     */
+    public static List<Message> findMessagesByKeyword(String query) {
+        return store.findByKeyword(query);
+    }
+
     public static String deleteMessageByHash(String messageHash) {
         if (messageHash == null || messageHash.trim().isEmpty()) {
             return "Message hash cannot be empty.";
         }
 
-        Message messageToDelete = null;
-        String actualHashOfFoundMessage = null;
-
-        Iterator<Message> iterator = allMessagesInMemory.iterator();
-        while (iterator.hasNext()) {
-            Message m = iterator.next();
-            String currentMessageHash = m.createMessageHash();
-            if (currentMessageHash != null && currentMessageHash.equals(messageHash.trim())) {
-                messageToDelete = m;
-                actualHashOfFoundMessage = currentMessageHash;
-                iterator.remove();
-                break;
-            }
+        String actualHashOfFoundMessage = messageHash.trim();
+        String storageName = store.getStorage().getName();
+        Message messageToDelete;
+        try {
+            messageToDelete = store.delete(actualHashOfFoundMessage);
+        } catch (IOException e) {
+            System.err.println("Error rewriting " + storageName + " after deletion: " + e.getMessage());
+            return "Error deleting message from file: " + e.getMessage();
         }
 
         if (messageToDelete != null) {
-            sentMessages.remove(messageToDelete);
-            disregardedMessages.remove(messageToDelete);
-            storedMessages.remove(messageToDelete);
-            messageIDs.remove(messageToDelete.getMessageID());
-            if (actualHashOfFoundMessage != null) {
-                messageHashes.remove(actualHashOfFoundMessage);
-            }
-
-            ObjectMapper mapper = new ObjectMapper();
-            File file = new File(FILE_NAME);
-            try {
-                mapper.writerWithDefaultPrettyPrinter().writeValue(file, allMessagesInMemory);
-                System.out.println("Message successfully deleted from " + FILE_NAME);
-                return "Message \"" + messageToDelete.getContent() + "\" successfully deleted.";
-            } catch (IOException e) {
-                System.err.println("Error rewriting JSON after deletion: " + e.getMessage());
-                return "Error deleting message from file: " + e.getMessage();
-            }
+            mailboxes.remove(messageToDelete);
+            System.out.println("Message successfully deleted from " + storageName);
+            return "Message \"" + messageToDelete.getContent() + "\" successfully deleted.";
         } else {
             return "Message with hash '" + messageHash + "' not found.";
         }
     }
 
     public static String generateSentMessagesReport() {
-        if (sentMessages.isEmpty()) {
-            return "No sent messages to generate a report.";
-        }
-        StringBuilder sb = new StringBuilder("\n--- Sent Messages Report ---\n");
-        for (Message m : sentMessages) {
-            sb.append("Message Hash: ").append(m.createMessageHash()).append("\n")
-              .append("Message ID: ").append(m.getMessageID()).append("\n")
-              .append("Sender: ").append(m.getSender()).append("\n")
-              .append("Recipient: ").append(m.getRecipient()).append("\n")
-              .append("Message: \"").append(m.getContent()).append("\"\n")
-              .append("----------------------------\n");
+        return render(Message::generateSentMessagesReport);
+    }
+
+    /**
+     * Streams {@link #generateSentMessagesReport()} to the writer, which is flushed but not closed.
+     */
+    public static void generateSentMessagesReport(Writer writer) throws IOException {
+        Writer out = buffered(writer);
+        List<Message> sent = getSentMessages();
+        if (sent.isEmpty()) {
+            out.write("No sent messages to generate a report.");
+        } else {
+            out.write("\n--- Sent Messages Report ---\n");
+            for (Message m : sent) {
+                out.append("Message Hash: ").append(m.getHash()).append("\n")
+                   .append("Message ID: ").append(m.getMessageID()).append("\n")
+                   .append("Sender: ").append(m.getSender()).append("\n")
+                   .append("Recipient: ").append(m.getRecipient()).append("\n")
+                   .append("Message: \"").append(m.getContent()).append("\"\n")
+                   .append("----------------------------\n");
+            }
         }
-        return sb.toString();
+        out.flush();
+    }
+
+    public static void generateSentMessagesReport(OutputStream out) throws IOException {
+        generateSentMessagesReport(writerFor(out));
     }
 }
@@ -0,0 +1,467 @@
+package com.project.Model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Column store for message fields. Instead of each message holding its own strings, the
+ * fields of every bound message live in parallel arrays indexed by row:
+ * <ul>
+ *   <li>message IDs as {@code long}s,</li>
+ *   <li>sender and recipient numbers packed into {@code long}s: a format tag for "+27..."
+ *       or "0..." in the high bits and the nine subscriber digits in the low bits,</li>
+ *   <li>the status as one {@code byte},</li>
+ *   <li>content as UTF-8 bytes in one shared {@link ContentArena}, addressed by position
+ *       and length. The arena is on the heap by default or in direct memory with
+ *       {@link OffHeapContentArena}; either way content is only decoded when read.</li>
+ * </ul>
+ * Values that do not fit the packed form (non-numeric IDs, foreign numbers, unusual flag
+ * spellings) are kept exactly in small side tables, so every field reads back unchanged.
+ *
+ * A bound {@link Message} keeps only a {@link Binding} and reads its fields from here,
+ * which cuts the per message heap cost from several strings to a few array slots. The
+ * arena is compacted once more than half of it is garbage.
+ *
+ * Every access takes the column store's own read/write lock, not the message store's:
+ * snapshot readers and the background storage writer read messages without that lock
+ * while a compaction may be moving content. Reads share the lock, so readers decode
+ * fields in parallel. A single lock rather than stripes of rows is enough: only writes
+ * exclude anyone, they are short, and a compaction moves every row's content at once,
+ * so it would have to take every stripe anyway. Rows of unbound messages are reused, but each
+ * reuse bumps the row's generation, so a reader still holding the old binding is told it
+ * is stale and reads the fields copied back onto the message instead of another
+ * message's row.
+ */
+public class MessageColumns {
+    private static final long NO_ID = -1;          // ID is null or in oddIds
+    private static final long NO_PHONE = 0;        // number is null
+    private static final long ODD_PHONE = -1;      // number is in oddPhones
+    private static final long PLUS_27 = 1L << 48;  // "+27" followed by 9 digits
+    private static final long LEADING_0 = 2L << 48; // "0" followed by 9 digits
+    private static final long SUBSCRIBER_MASK = (1L << 48) - 1;
+    private static final byte NO_STATUS = 0;       // flag is null
+    private static final byte ODD_STATUS = -1;     // flag is in oddFlags
+    private static final int MIN_COMPACT_BYTES = 64 * 1024;
+    private static final MessageStatus[] STATUSES = MessageStatus.values();
+
+    /** Returned by the reads below for a binding whose row has since been freed. */
+    static final String STALE = new String("stale");
+
+    /**
+     * Where a bound message's fields live. Published as one immutable value so a reader
+     * never sees the row of one binding with the column store of another.
+     */
+    record Binding(MessageColumns columns, int row, int generation) {
+        String messageID() { return columns.messageID(this); }
+        String sender() { return columns.sender(this); }
+        String recipient() { return columns.recipient(this); }
+        String flag() { return columns.flag(this); }
+        String content() { return columns.content(this); }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+
+    // Guarded by lock.
+    private long[] ids;
+    private long[] senders;
+    private long[] recipients;
+    private byte[] statuses;
+    private long[] contentAddresses;
+    private int[] contentLengths; // -1 for null content
+    private int[] generations;    // bumped each time a row is freed
+
+    private final Map<Integer, String> oddIds = new HashMap<>();
+    private final Map<Long, String> oddPhones = new HashMap<>(); // key: row << 1 | column
+    private final Map<Integer, String> oddFlags = new HashMap<>();
+
+    private ContentArena arena;
+    private long deadBytes;
+
+    private int[] freeRows = new int[16];
+    private int freeCount;
+    private int rowCount; // rows ever handed out, including free ones
+    private int size;
+
+    public MessageColumns() {
+        this(1024);
+    }
+
+    public MessageColumns(int initialRows) {
+        this(initialRows, new HeapContentArena());
+    }
+
+    public MessageColumns(int initialRows, ContentArena arena) {
+        this.arena = arena;
+        int capacity = Math.max(initialRows, 16);
+        ids = new long[capacity];
+        senders = new long[capacity];
+        recipients = new long[capacity];
+        statuses = new byte[capacity];
+        contentAddresses = new long[capacity];
+        contentLengths = new int[capacity];
+        generations = new int[capacity];
+    }
+
+    /** @return The number of bound messages. */
+    public int size() {
+        readLock.lock();
+        try {
+            return size;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /** @return Bytes of content arena in use, including garbage not yet compacted. */
+    public long contentBytes() {
+        readLock.lock();
+        try {
+            return arena.bytesUsed();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /** @return The arena content is currently written to. */
+    public ContentArena getArena() {
+        readLock.lock();
+        try {
+            return arena;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Moves the message's fields into a new row. The message then reads its fields from
+     * here until {@link #unbind(Message)} is called.
+     */
+    public void bind(Message msg) {
+        writeLock.lock();
+        try {
+            if (msg.binding != null) {
+                return;
+            }
+            int row = allocateRow();
+            setMessageID(row, msg.getMessageID());
+            setSender(row, msg.getSender());
+            setRecipient(row, msg.getRecipient());
+            setFlag(row, msg.getFlag());
+            setContent(row, msg.getContent());
+            msg.bindTo(new Binding(this, row, generations[row]));
+            size++;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Copies the fields back onto the message and frees its row. Readers still holding the
+     * old binding find it stale from here on.
+     */
+    public void unbind(Message msg) {
+        writeLock.lock();
+        try {
+            Binding binding = msg.binding;
+            if (binding == null || binding.columns() != this) {
+                return;
+            }
+            int row = binding.row();
+            msg.unbindFrom(messageID(row), sender(row), recipient(row), content(row), flag(row));
+            generations[row]++;
+            setMessageID(row, null);
+            setSender(row, null);
+            setRecipient(row, null);
+            setFlag(row, null);
+            setContent(row, null);
+            if (freeCount == freeRows.length) {
+                freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+            }
+            freeRows[freeCount++] = row;
+            size--;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private boolean isStale(Binding binding) {
+        return generations[binding.row()] != binding.generation();
+    }
+
+    String messageID(Binding binding) {
+        readLock.lock();
+        try {
+            return isStale(binding) ? STALE : messageID(binding.row());
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    String sender(Binding binding) {
+        readLock.lock();
+        try {
+            return isStale(binding) ? STALE : sender(binding.row());
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    String recipient(Binding binding) {
+        readLock.lock();
+        try {
+            return isStale(binding) ? STALE : recipient(binding.row());
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    String flag(Binding binding) {
+        readLock.lock();
+        try {
+            return isStale(binding) ? STALE : flag(binding.row());
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    String content(Binding binding) {
+        readLock.lock();
+        try {
+            return isStale(binding) ? STALE : content(binding.row());
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /** @return False, writing nothing, if the binding is stale. */
+    boolean setMessageID(Binding binding, String messageID) {
+        writeLock.lock();
+        try {
+            if (isStale(binding)) {
+                return false;
+            }
+            setMessageID(binding.row(), messageID);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    boolean setSender(Binding binding, String sender) {
+        writeLock.lock();
+        try {
+            if (isStale(binding)) {
+                return false;
+            }
+            setSender(binding.row(), sender);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    boolean setRecipient(Binding binding, String recipient) {
+        writeLock.lock();
+        try {
+            if (isStale(binding)) {
+                return false;
+            }
+            setRecipient(binding.row(), recipient);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    boolean setFlag(Binding binding, String flag) {
+        writeLock.lock();
+        try {
+            if (isStale(binding)) {
+                return false;
+            }
+            setFlag(binding.row(), flag);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    boolean setContent(Binding binding, String content) {
+        writeLock.lock();
+        try {
+            if (isStale(binding)) {
+                return false;
+            }
+            setContent(binding.row(), content);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private String messageID(int row) {
+        long id = ids[row];
+        return id == NO_ID ? oddIds.get(row) : Long.toString(id);
+    }
+
+    private void setMessageID(int row, String messageID) {
+        long key = Message.idKey(messageID);
+        ids[row] = key >= 0 ? key : NO_ID;
+        if (key < 0 && messageID != null) {
+            oddIds.put(row, messageID);
+        } else {
+            oddIds.remove(row);
+        }
+    }
+
+    private String sender(int row) {
+        return unpackPhone(senders[row], row, 0);
+    }
+
+    private void setSender(int row, String phoneNumber) {
+        senders[row] = packPhone(phoneNumber, row, 0);
+    }
+
+    private String recipient(int row) {
+        return unpackPhone(recipients[row], row, 1);
+    }
+
+    private void setRecipient(int row, String phoneNumber) {
+        recipients[row] = packPhone(phoneNumber, row, 1);
+    }
+
+    private String flag(int row) {
+        byte status = statuses[row];
+        if (status == NO_STATUS) {
+            return null;
+        }
+        return status == ODD_STATUS ? oddFlags.get(row) : STATUSES[status - 1].getLabel();
+    }
+
+    private void setFlag(int row, String flag) {
+        MessageStatus status = MessageStatus.fromFlag(flag);
+        oddFlags.remove(row);
+        if (flag == null) {
+            statuses[row] = NO_STATUS;
+        } else if (status != null && status.getLabel().equals(flag)) {
+            statuses[row] = (byte) (status.ordinal() + 1);
+        } else {
+            statuses[row] = ODD_STATUS; // unknown flag, or a known one spelled differently
+            oddFlags.put(row, flag);
+        }
+    }
+
+    private String content(int row) {
+        int length = contentLengths[row];
+        if (length <= 0) {
+            return length < 0 ? null : "";
+        }
+        return new String(arena.read(contentAddresses[row], length), StandardCharsets.UTF_8);
+    }
+
+    private void setContent(int row, String content) {
+        if (contentLengths[row] > 0) {
+            deadBytes += contentLengths[row];
+        }
+        contentLengths[row] = -1;
+        if (content == null) {
+            return;
+        }
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length == 0) {
+            contentAddresses[row] = 0; // never read, so it needs no place in the arena
+            contentLengths[row] = 0;
+            return;
+        }
+        if (deadBytes > MIN_COMPACT_BYTES && deadBytes * 2 > arena.bytesUsed()) {
+            compact();
+        }
+        contentAddresses[row] = arena.append(bytes);
+        contentLengths[row] = bytes.length;
+    }
+
+    private int allocateRow() {
+        if (freeCount > 0) {
+            return freeRows[--freeCount];
+        }
+        if (rowCount == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            senders = Arrays.copyOf(senders, capacity);
+            recipients = Arrays.copyOf(recipients, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            contentAddresses = Arrays.copyOf(contentAddresses, capacity);
+            contentLengths = Arrays.copyOf(contentLengths, capacity);
+            generations = Arrays.copyOf(generations, capacity);
+        }
+        contentLengths[rowCount] = -1;
+        return rowCount++;
+    }
+
+    /**
+     * Copies the live content into a fresh arena, in row order, and drops the old one.
+     * Empty content has no bytes in any arena, so it needs no new address.
+     */
+    private void compact() {
+        ContentArena compacted = arena.newEmpty((arena.bytesUsed() - deadBytes) * 2);
+        for (int row = 0; row < rowCount; row++) {
+            int length = contentLengths[row];
+            if (length > 0) {
+                contentAddresses[row] = compacted.append(arena.read(contentAddresses[row], length));
+            }
+        }
+        arena = compacted;
+        deadBytes = 0;
+    }
+
+    private long packPhone(String phoneNumber, int row, int column) {
+        long key = (long) row << 1 | column;
+        oddPhones.remove(key);
+        if (phoneNumber == null) {
+            return NO_PHONE;
+        }
+        long format;
+        int start;
+        if (phoneNumber.length() == 12 && phoneNumber.startsWith("+27")) {
+            format = PLUS_27;
+            start = 3;
+        } else if (phoneNumber.length() == 10 && phoneNumber.charAt(0) == '0') {
+            format = LEADING_0;
+            start = 1;
+        } else {
+            oddPhones.put(key, phoneNumber);
+            return ODD_PHONE;
+        }
+        long subscriber = 0;
+        for (int i = start; i < phoneNumber.length(); i++) {
+            char c = phoneNumber.charAt(i);
+            if (c < '0' || c > '9') {
+                oddPhones.put(key, phoneNumber);
+                return ODD_PHONE;
+            }
+            subscriber = subscriber * 10 + (c - '0');
+        }
+        return format | subscriber;
+    }
+
+    private String unpackPhone(long packed, int row, int column) {
+        if (packed == NO_PHONE) {
+            return null;
+        }
+        if (packed == ODD_PHONE) {
+            return oddPhones.get((long) row << 1 | column);
+        }
+        String digits = Long.toString(packed & SUBSCRIBER_MASK);
+        StringBuilder sb = new StringBuilder(12).append((packed & ~SUBSCRIBER_MASK) == PLUS_27 ? "+27" : "0");
+        for (int i = digits.length(); i < 9; i++) {
+            sb.append('0');
+        }
+        return sb.append(digits).toString();
+    }
+}
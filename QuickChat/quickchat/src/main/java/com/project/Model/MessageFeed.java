@@ -0,0 +1,224 @@
+package com.project.Model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pushes newly stored sent messages to subscribers of their recipient number.
+ *
+ * Each subscription is a {@link Flow.Subscription} with its own bounded buffer. Messages
+ * that arrive while the subscriber is busy are collected and handed over together, so
+ * one {@code onNext} carries every message waiting for it (up to {@code maxBatch}), and
+ * demand counts batches rather than messages. Delivery runs on a virtual thread that only
+ * exists while a subscription has both demand and messages waiting, so idle subscribers
+ * cost nothing but their buffer. A subscriber that falls more than {@code bufferCapacity}
+ * messages behind misses the newest ones rather than slowing down the senders; those
+ * messages are still stored and delivered to the inbox as usual.
+ */
+public class MessageFeed {
+    public static final int DEFAULT_BUFFER_CAPACITY = 1024;
+    public static final int DEFAULT_MAX_BATCH = 256;
+
+    private final Map<String, Set<FeedSubscription>> subscriptions = new ConcurrentHashMap<>();
+    private final Executor executor;
+    private final int bufferCapacity;
+    private final int maxBatch;
+    private final LongAdder dropped = new LongAdder();
+
+    public MessageFeed() {
+        this(Executors.newVirtualThreadPerTaskExecutor(), DEFAULT_BUFFER_CAPACITY, DEFAULT_MAX_BATCH);
+    }
+
+    public MessageFeed(Executor executor, int bufferCapacity, int maxBatch) {
+        this.executor = executor;
+        this.bufferCapacity = bufferCapacity;
+        this.maxBatch = maxBatch;
+    }
+
+    /**
+     * @return A publisher of the sent messages stored for this recipient from now on, in
+     *         batches. The +27 and 0 forms of a number are the same recipient.
+     */
+    public Flow.Publisher<List<Message>> forRecipient(String recipient) {
+        String key = feedKey(recipient);
+        return subscriber -> {
+            FeedSubscription subscription = new FeedSubscription(key, subscriber);
+            subscriber.onSubscribe(subscription);
+            subscriptions.compute(key, (k, set) -> {
+                if (subscription.cancelled) {
+                    return set; // cancelled during onSubscribe
+                }
+                Set<FeedSubscription> subscribed = set != null ? set : ConcurrentHashMap.newKeySet();
+                subscribed.add(subscription);
+                return subscribed;
+            });
+        };
+    }
+
+    /**
+     * Hands newly stored messages to the subscribers of their recipients. Never blocks.
+     */
+    public void publish(List<Message> stored) {
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+        for (Message msg : stored) {
+            if (msg.getStatus() != MessageStatus.SENT) {
+                continue;
+            }
+            Set<FeedSubscription> subscribed = subscriptions.get(feedKey(msg.getRecipient()));
+            if (subscribed != null) {
+                for (FeedSubscription subscription : subscribed) {
+                    subscription.enqueue(msg);
+                }
+            }
+        }
+    }
+
+    /** @return The number of subscriptions still open. */
+    public int subscriberCount() {
+        int count = 0;
+        for (Set<FeedSubscription> subscribed : subscriptions.values()) {
+            count += subscribed.size();
+        }
+        return count;
+    }
+
+    /** @return Messages not pushed because a subscriber's buffer was full. */
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Completes every subscription.
+     */
+    public void close() {
+        for (Set<FeedSubscription> subscribed : subscriptions.values()) {
+            for (FeedSubscription subscription : subscribed) {
+                subscription.complete();
+            }
+        }
+    }
+
+    private static String feedKey(String recipient) {
+        long key = RecipientIndex.canonicalKey(recipient);
+        return key >= 0 ? Long.toString(key) : String.valueOf(recipient);
+    }
+
+    private final class FeedSubscription implements Flow.Subscription, Runnable {
+        private final String key;
+        private final Flow.Subscriber<? super List<Message>> subscriber;
+        private final ConcurrentLinkedQueue<Message> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger work = new AtomicInteger(); // non-zero while a drain is scheduled
+        private volatile boolean cancelled;
+        private volatile boolean completed;
+        private volatile Throwable error;
+
+        FeedSubscription(String key, Flow.Subscriber<? super List<Message>> subscriber) {
+            this.key = key;
+            this.subscriber = subscriber;
+        }
+
+        void enqueue(Message msg) {
+            if (cancelled) {
+                return;
+            }
+            if (pendingCount.incrementAndGet() > bufferCapacity) {
+                pendingCount.decrementAndGet();
+                dropped.increment();
+                return;
+            }
+            pending.add(msg);
+            schedule();
+        }
+
+        void complete() {
+            completed = true;
+            schedule();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("Demand must be positive: " + n);
+            } else {
+                demand.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.computeIfPresent(key, (k, set) -> {
+                set.remove(this);
+                return set.isEmpty() ? null : set;
+            });
+            pending.clear();
+        }
+
+        private void schedule() {
+            if (work.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        /**
+         * Delivers batches while there is demand. Only one run is active per subscription,
+         * so the subscriber's methods are never called concurrently.
+         */
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                if (!cancelled) {
+                    deliver();
+                }
+                missed = work.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void deliver() {
+            Throwable failure = error;
+            if (failure != null) {
+                cancel();
+                subscriber.onError(failure);
+                return;
+            }
+            if (completed) {
+                cancel();
+                subscriber.onComplete();
+                return;
+            }
+            while (!cancelled && demand.get() > 0 && !pending.isEmpty()) {
+                List<Message> batch = new ArrayList<>(Math.min(pendingCount.get(), maxBatch));
+                Message msg;
+                while (batch.size() < maxBatch && (msg = pending.poll()) != null) {
+                    batch.add(msg);
+                }
+                pendingCount.addAndGet(-batch.size());
+                if (demand.get() != Long.MAX_VALUE) {
+                    demand.decrementAndGet();
+                }
+                try {
+                    subscriber.onNext(batch);
+                } catch (Throwable t) {
+                    cancel(); // a subscriber that throws is treated as having cancelled
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.project.Model;
+
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Hands out unique ten digit message IDs without locking.
+ *
+ * The ID space 1,000,000,000 to 9,999,999,999 is split evenly between
+ * {@value #MAX_NODES} nodes, so separately running instances given different node
+ * numbers never collide. Within a node's range IDs come from a counter in the style of a
+ * Snowflake ID with the time and sequence parts merged: ten digits leave no room for
+ * separate bit fields, so the counter is simply never allowed to fall behind the number
+ * of seconds since {@link #EPOCH_MILLIS}. Bursts run ahead of the clock and idle time
+ * lets it catch up, and a restarted process starts at least at the current second, so a
+ * node's range lasts until 2042 as long as it averages at most one ID per second.
+ *
+ * IDs are handed out from a few stripes, about two per processor, each holding a block
+ * claimed from the shared counter with one compare and set. A thread always uses the
+ * same stripe, picked from its thread ID, so concurrent senders rarely touch the same
+ * memory. Blocks belong to the stripe rather than the thread, so short lived threads,
+ * such as the virtual thread per connection of {@link com.project.ChatServer}, do not
+ * strand the rest of a block when they end; IDs are only lost from blocks still open
+ * when the process stops, or when two threads on one stripe refill it at once.
+ *
+ * IDs that already exist, from a reload or an import, are passed to {@link #observe}.
+ * Those ahead of the counter are skipped when their turn comes, which covers IDs issued
+ * before a restart while the counter was ahead of the clock.
+ */
+public class MessageIdAllocator {
+    public static final long MIN_ID = 1_000_000_000L;
+    public static final long MAX_ID = 9_999_999_999L;
+    public static final int MAX_NODES = 16;
+    /** 2025-01-01T00:00:00Z */
+    public static final long EPOCH_MILLIS = 1_735_689_600_000L;
+
+    private static final long NODE_RANGE = (MAX_ID - MIN_ID + 1) / MAX_NODES;
+    private static final int DEFAULT_BLOCK_SIZE = 32;
+
+    private final int node;
+    private final long base;
+    private final int blockSize;
+    private final LongSupplier clockSeconds;
+    private final long firstOffset; // nothing below this is ever handed out
+    private final AtomicLong nextBlock = new AtomicLong();
+    private final ConcurrentSkipListSet<Long> taken = new ConcurrentSkipListSet<>();
+    private final AtomicLong[] stripes; // each: next offset << 32 | end offset of its block
+
+    /**
+     * @param node This instance's node number, from 0 to {@value #MAX_NODES} - 1.
+     */
+    public MessageIdAllocator(int node) {
+        this(node, DEFAULT_BLOCK_SIZE, () -> (System.currentTimeMillis() - EPOCH_MILLIS) / 1000);
+    }
+
+    public MessageIdAllocator(int node, int blockSize, LongSupplier clockSeconds) {
+        if (node < 0 || node >= MAX_NODES) {
+            throw new IllegalArgumentException("Node must be between 0 and " + (MAX_NODES - 1) + ": " + node);
+        }
+        this.node = node;
+        this.base = MIN_ID + node * NODE_RANGE;
+        this.blockSize = blockSize;
+        this.clockSeconds = clockSeconds;
+        this.firstOffset = Math.max(0, clockSeconds.getAsLong());
+        this.stripes = new AtomicLong[Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new AtomicLong();
+        }
+    }
+
+    public int getNode() {
+        return node;
+    }
+
+    /**
+     * @return A ten digit ID not handed out or observed before.
+     * @throws IllegalStateException If this node's range is used up.
+     */
+    public long next() {
+        AtomicLong stripe = stripes[(int) Thread.currentThread().threadId() & (stripes.length - 1)];
+        while (true) {
+            long current = stripe.get();
+            long offset = current >>> 32;
+            if (offset < (current & 0xFFFF_FFFFL)) {
+                if (!stripe.compareAndSet(current, current + (1L << 32))) {
+                    continue;
+                }
+            } else {
+                offset = claimBlock();
+                long refilled = (offset + 1) << 32 | (offset + blockSize);
+                // Only ever move a stripe forward, so each thread keeps seeing rising IDs.
+                while (!stripe.compareAndSet(current, refilled)) {
+                    current = stripe.get();
+                    if (current >>> 32 > offset) {
+                        break; // another thread refilled it with a later block
+                    }
+                }
+            }
+            long id = base + offset;
+            if (taken.isEmpty() || !taken.remove(id)) {
+                return id;
+            }
+        }
+    }
+
+    /**
+     * Records an ID that is already in use, so it is never handed out. Only IDs ahead of
+     * the counter are remembered; that excludes this allocator's own IDs and keeps the
+     * set small. An ID landing inside a block some stripe has claimed but not used up is
+     * not caught, which can only happen to IDs imported while messages are being sent.
+     */
+    public void observe(long id) {
+        long offset = id - base;
+        if (offset < NODE_RANGE && offset >= Math.max(firstOffset, nextBlock.get())) {
+            taken.add(id);
+        }
+    }
+
+    private long claimBlock() {
+        while (true) {
+            long current = nextBlock.get();
+            long start = Math.max(current, clockSeconds.getAsLong());
+            if (start + blockSize > NODE_RANGE) {
+                throw new IllegalStateException("Message IDs for node " + node + " are used up");
+            }
+            if (nextBlock.compareAndSet(current, start + blockSize)) {
+                return start;
+            }
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package com.project.Model;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.IntStream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Bulk loads messages from a migration dump into a {@link MessageStore}.
+ *
+ * Two formats are read, chosen by file extension:
+ * <ul>
+ *   <li>{@code .jsonl} / {@code .ndjson}: one message object per line, with the same
+ *       fields as messages.json.</li>
+ *   <li>{@code .csv}: a header row naming the columns ({@code recipient} and
+ *       {@code content} are required; {@code messageID}, {@code sender} and {@code flag}
+ *       are optional) followed by one message per line. Fields may be quoted with
+ *       {@code "}, doubling quotes inside; records cannot span lines.</li>
+ * </ul>
+ * The file is streamed in chunks. Each chunk is parsed and validated in parallel on the
+ * common fork/join pool, then checked for duplicate IDs in file order, given IDs where
+ * the row has none, and handed to the store as one batch, so the indexes are updated
+ * under a single lock and storage writes the whole chunk at once. The next chunk is
+ * parsed while the previous one is being written.
+ *
+ * Rows without a flag are imported as sent. Rows that fail validation are skipped and
+ * reported with their line number.
+ */
+public class MessageImporter {
+    public static final int DEFAULT_CHUNK_SIZE = 10_000;
+    /** Rejects kept in the report; the count covers all of them. */
+    public static final int MAX_REPORTED_REJECTS = 1000;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * A row that was not imported.
+     */
+    public record Reject(long line, String reason) {
+        @Override
+        public String toString() {
+            return "Line " + line + ": " + reason;
+        }
+    }
+
+    /**
+     * The outcome of an import.
+     */
+    public record Report(long rows, long imported, long rejected, List<Reject> rejects, long elapsedNanos) {
+        public double messagesPerSecond() {
+            return imported * 1_000_000_000.0 / Math.max(1, elapsedNanos);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("Imported %,d of %,d messages in %.2f s (%,.0f messages/sec), %,d rejected",
+                    imported, rows, elapsedNanos / 1e9, messagesPerSecond(), rejected));
+            for (int i = 0; i < Math.min(20, rejects.size()); i++) {
+                sb.append("\n  ").append(rejects.get(i));
+            }
+            if (rejected > 20) {
+                sb.append("\n  ... and ").append(rejected - 20).append(" more");
+            }
+            return sb.toString();
+        }
+    }
+
+    private enum Format { JSONL, CSV }
+
+    /** One parsed row: a message ready to store, or the reason it was rejected. */
+    private record Parsed(long line, Message message, String reason) {}
+
+    private final MessageStore store;
+    private final int chunkSize;
+    private final StreamingJsonLoader.ProgressListener progress;
+
+    private final Set<Long> seenIds = new HashSet<>();
+    private Set<String> storedOddIds; // stored IDs the store's ID index leaves out, collected once
+    private final List<Reject> rejects = new ArrayList<>();
+    private long rows;
+    private long imported;
+    private long rejected;
+
+    /**
+     * @param progress Called after each chunk; may be null.
+     */
+    public MessageImporter(MessageStore store, int chunkSize, StreamingJsonLoader.ProgressListener progress) {
+        this.store = store;
+        this.chunkSize = chunkSize;
+        this.progress = progress;
+    }
+
+    /**
+     * Imports every valid row of the file.
+     * @throws IOException If the file cannot be read or the store fails to write a chunk.
+     *                     Chunks written before the failure stay imported.
+     */
+    public Report importFile(File file) throws IOException {
+        Format format = formatOf(file);
+        seenIds.clear();
+        storedOddIds = null;
+        rejects.clear();
+        rows = imported = rejected = 0;
+        long totalBytes = file.length();
+        long started = System.nanoTime();
+        long bytesRead = 0;
+        CompletableFuture<Void> writing = CompletableFuture.completedFuture(null);
+
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String[] columns = null;
+            long lineNumber = 0;
+            if (format == Format.CSV) {
+                String header = reader.readLine();
+                lineNumber++;
+                if (header == null) {
+                    return report(started);
+                }
+                bytesRead += utf8Length(header) + 1;
+                columns = splitCsv(header).toArray(new String[0]);
+                for (int i = 0; i < columns.length; i++) {
+                    columns[i] = columns[i].trim().toLowerCase(Locale.ROOT);
+                }
+                if (indexOf(columns, "recipient") < 0 || indexOf(columns, "content") < 0) {
+                    throw new IOException(file.getName() + " needs a header row with recipient and content columns");
+                }
+            }
+
+            List<String> lines = new ArrayList<>(chunkSize);
+            long firstLine = lineNumber + 1;
+            String line;
+            while (true) {
+                line = reader.readLine();
+                if (line != null) {
+                    lineNumber++;
+                    bytesRead += utf8Length(line) + 1;
+                    lines.add(line);
+                }
+                if (lines.size() == chunkSize || (line == null && !lines.isEmpty())) {
+                    List<Message> valid = validate(parse(lines, firstLine, format, columns));
+                    await(writing); // keep at most one chunk in flight
+                    writing = valid.isEmpty() ? CompletableFuture.completedFuture(null) : store.storeAsync(valid);
+                    imported += valid.size();
+                    if (progress != null) {
+                        progress.onProgress(rows, Math.min(bytesRead, totalBytes), totalBytes, rate(imported, started));
+                    }
+                    lines = new ArrayList<>(chunkSize);
+                    firstLine = lineNumber + 1;
+                }
+                if (line == null) {
+                    break;
+                }
+            }
+        }
+        await(writing);
+        return report(started);
+    }
+
+    /**
+     * Parses and validates every line of a chunk in parallel. Only looks at the row
+     * itself; checks against other rows happen in {@link #validate(Parsed[])}.
+     */
+    private Parsed[] parse(List<String> lines, long firstLine, Format format, String[] columns) {
+        Parsed[] parsed = new Parsed[lines.size()];
+        IntStream.range(0, lines.size()).parallel().forEach(i -> {
+            long line = firstLine + i;
+            String text = lines.get(i);
+            if (text.isBlank()) {
+                return; // blank lines are not rows
+            }
+            Message msg;
+            try {
+                msg = format == Format.JSONL ? MAPPER.readValue(text, Message.class) : fromCsv(splitCsv(text), columns);
+            } catch (JsonProcessingException e) {
+                parsed[i] = new Parsed(line, null, "Invalid JSON: " + e.getOriginalMessage());
+                return;
+            } catch (IllegalArgumentException e) {
+                parsed[i] = new Parsed(line, null, e.getMessage());
+                return;
+            }
+            parsed[i] = new Parsed(line, msg, check(msg));
+        });
+        return parsed;
+    }
+
+    private static String check(Message msg) {
+        if (msg.getFlag() == null) {
+            msg.setFlag(MessageStatus.SENT.getLabel());
+        } else if (msg.getStatus() == null) {
+            return "Unknown status \"" + msg.getFlag() + "\"";
+        }
+        ValidationEngine.Code recipient = ValidationEngine.cellNumber(msg.getRecipient());
+        if (!recipient.isValid()) {
+            return "Invalid recipient cell number \"" + msg.getRecipient() + "\": " + recipient.getDescription();
+        }
+        if (msg.getMessageID() != null && !msg.checkMessageID()) {
+            return "Invalid message ID \"" + msg.getMessageID() + "\"";
+        }
+        if (msg.getContent() == null || msg.getContent().isEmpty()) {
+            return "Missing content";
+        }
+        return null;
+    }
+
+    /**
+     * Drops rejects and duplicate IDs, in file order so the first occurrence of an ID
+     * wins, and allocates IDs for rows that have none.
+     */
+    private List<Message> validate(Parsed[] parsed) {
+        List<Message> valid = new ArrayList<>(parsed.length);
+        for (Parsed p : parsed) {
+            if (p == null) {
+                continue;
+            }
+            rows++;
+            if (p.reason() != null) {
+                reject(p.line(), p.reason());
+                continue;
+            }
+            Message msg = p.message();
+            String id = msg.getMessageID();
+            if (id == null) {
+                do {
+                    id = Message.newMessageID();
+                } while (seenIds.contains(Long.parseLong(id)) || isStored(id));
+                msg.setMessageID(id);
+            } else if (seenIds.contains(Long.parseLong(id)) || isStored(id)) {
+                reject(p.line(), "Duplicate message ID " + id);
+                continue;
+            }
+            seenIds.add(Long.parseLong(id));
+            valid.add(msg);
+        }
+        return valid;
+    }
+
+    /**
+     * Checks an ID against the store. The store only indexes IDs without leading zeros, so
+     * any others it holds are collected in one pass the first time such an ID comes up,
+     * instead of each lookup scanning the store. Messages stored with such IDs by someone
+     * else during the import are not seen.
+     */
+    private boolean isStored(String id) {
+        if (Message.idKey(id) >= 0) {
+            return store.findById(id) != null;
+        }
+        if (storedOddIds == null) {
+            storedOddIds = new HashSet<>();
+            for (Message m : store.snapshot().messages()) {
+                String stored = m.getMessageID();
+                if (stored != null && Message.idKey(stored) < 0) {
+                    storedOddIds.add(stored);
+                }
+            }
+        }
+        return storedOddIds.contains(id);
+    }
+
+    private void reject(long line, String reason) {
+        rejected++;
+        if (rejects.size() < MAX_REPORTED_REJECTS) {
+            rejects.add(new Reject(line, reason));
+        }
+    }
+
+    private Report report(long started) {
+        return new Report(rows, imported, rejected, List.copyOf(rejects), System.nanoTime() - started);
+    }
+
+    private static void await(CompletableFuture<Void> writing) throws IOException {
+        try {
+            writing.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * @return The number of bytes the line took in the UTF-8 file, without its line end,
+     *         so progress is reported in the same unit as the file length.
+     */
+    private static int utf8Length(String line) {
+        int bytes = line.length();
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c >= 0x800) {
+                bytes += Character.isSurrogate(c) ? 1 : 2; // a surrogate pair is 4 bytes in all
+            } else if (c >= 0x80) {
+                bytes++;
+            }
+        }
+        return bytes;
+    }
+
+    private static double rate(long count, long started) {
+        return count * 1_000_000_000.0 / Math.max(1, System.nanoTime() - started);
+    }
+
+    private static Format formatOf(File file) throws IOException {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+            return Format.JSONL;
+        }
+        if (name.endsWith(".csv")) {
+            return Format.CSV;
+        }
+        throw new IOException("Cannot tell the format of " + file.getName() + "; use a .jsonl or .csv file");
+    }
+
+    private static Message fromCsv(List<String> fields, String[] columns) {
+        if (fields.size() != columns.length) {
+            throw new IllegalArgumentException("Expected " + columns.length + " columns but found " + fields.size());
+        }
+        Message msg = new Message();
+        for (int i = 0; i < columns.length; i++) {
+            String value = fields.get(i);
+            switch (columns[i]) {
+                case "messageid" -> msg.setMessageID(value.isEmpty() ? null : value.trim());
+                case "sender" -> msg.setSender(value.trim());
+                case "recipient" -> msg.setRecipient(value.trim());
+                case "content" -> msg.setContent(value);
+                case "flag" -> msg.setFlag(value.isEmpty() ? null : value.trim());
+                default -> { } // other columns are ignored
+            }
+        }
+        return msg;
+    }
+
+    /**
+     * Splits one CSV record. Quoted fields may contain commas and doubled quotes.
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static int indexOf(String[] columns, String name) {
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
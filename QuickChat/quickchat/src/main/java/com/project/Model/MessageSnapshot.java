@@ -0,0 +1,134 @@
+package com.project.Model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Compact binary image of every message in memory, tagged with the sequence number of
+ * the last log record it includes. Layout:
+ * [magic][version][last sequence][count] then per message the sequence number of the
+ * record that stored it, then [messageID][sender][recipient][content][flag], each as a
+ * length prefixed UTF-8 string (length -1 for null). Message numbers and hashes are not
+ * stored; they are reassigned on load the same way they are for messages.json.
+ */
+final class MessageSnapshot {
+    private static final int MAGIC = 0x51435331; // "QCS1"
+    private static final int VERSION = 2;
+
+    private MessageSnapshot() {}
+
+    /**
+     * Writes the snapshot to a temporary file, syncs it, then moves it over the target so
+     * readers only ever see a complete snapshot.
+     * @param seqs The sequence number of each message's record, in the same order.
+     */
+    static void write(File target, long lastSeq, List<Message> messages, long[] seqs) throws IOException {
+        commit(writeTemp(target, lastSeq, messages, seqs), target);
+    }
+
+    /**
+     * Writes and syncs the snapshot next to the target without replacing it yet, so the
+     * slow part can happen outside any lock.
+     * @return The temporary file to pass to {@link #commit}.
+     */
+    static File writeTemp(File target, long lastSeq, List<Message> messages, long[] seqs) throws IOException {
+        File tmp = new File(target.getPath() + "." + lastSeq + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(lastSeq);
+            out.writeInt(messages.size());
+            for (int i = 0; i < messages.size(); i++) {
+                Message msg = messages.get(i);
+                out.writeLong(seqs[i]);
+                writeString(out, msg.getMessageID());
+                writeString(out, msg.getSender());
+                writeString(out, msg.getRecipient());
+                writeString(out, msg.getContent());
+                writeString(out, msg.getFlag());
+            }
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        return tmp;
+    }
+
+    static void commit(File tmp, File target) throws IOException {
+        Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Streams every message in the snapshot into the sink.
+     * @return The sequence number of the last log record included in the snapshot.
+     */
+    static long read(File source, Consumer<Message> sink) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(source), 1 << 16))) {
+            readVersion(in, source);
+            long lastSeq = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                Message msg = new Message();
+                msg.storageKey = in.readLong();
+                msg.setMessageID(readString(in));
+                msg.setSender(readString(in));
+                msg.setRecipient(readString(in));
+                msg.setContent(readString(in));
+                msg.setFlag(readString(in));
+                sink.accept(msg);
+            }
+            return lastSeq;
+        }
+    }
+
+    /**
+     * @return The last sequence number recorded in the snapshot, without reading its messages.
+     */
+    static long readLastSeq(File source) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(source))) {
+            readVersion(in, source);
+            return in.readLong();
+        }
+    }
+
+    private static void readVersion(DataInputStream in, File source) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException(source.getName() + " is not a message snapshot");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + " in " + source.getName());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
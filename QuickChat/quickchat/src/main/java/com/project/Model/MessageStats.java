@@ -0,0 +1,205 @@
+package com.project.Model;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals over the messages in memory, updated as messages are stored, deleted or
+ * change status, so reading a figure never scans the message history. Counters are
+ * {@link LongAdder}s and the per number maps are concurrent, so updates from several
+ * threads do not contend on a lock.
+ *
+ * Phone numbers are counted under their "+27" form when they are South African cell
+ * numbers, so "0831234567" and "+27831234567" add up together. Content lengths are
+ * counted in power of two buckets: 0, 1, 2-3, 4-7, 8-15 and so on.
+ */
+public class MessageStats {
+    private static final int LENGTH_BUCKETS = 32;
+
+    private final LongAdder total = new LongAdder();
+    private final LongAdder totalCharacters = new LongAdder();
+    private final Map<MessageStatus, LongAdder> byStatus = new EnumMap<>(MessageStatus.class);
+    private final LongAdder unknownStatus = new LongAdder();
+    private final Map<String, LongAdder> bySender = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> byRecipient = new ConcurrentHashMap<>();
+    private final LongAdder[] lengthBuckets = new LongAdder[LENGTH_BUCKETS];
+
+    public MessageStats() {
+        for (MessageStatus status : MessageStatus.values()) {
+            byStatus.put(status, new LongAdder());
+        }
+        for (int i = 0; i < LENGTH_BUCKETS; i++) {
+            lengthBuckets[i] = new LongAdder();
+        }
+    }
+
+    /** A phone number and how many messages it sent or received. */
+    public record Talker(String phoneNumber, long messages) {}
+
+    public void record(Message msg) {
+        update(msg, 1);
+    }
+
+    public void forget(Message msg) {
+        update(msg, -1);
+    }
+
+    /**
+     * Moves one message's count from its old status to its new one.
+     */
+    public void statusChanged(MessageStatus from, MessageStatus to) {
+        statusCounter(from).decrement();
+        statusCounter(to).increment();
+    }
+
+    /**
+     * Resets every counter. Not atomic with respect to concurrent updates.
+     */
+    public void clear() {
+        total.reset();
+        totalCharacters.reset();
+        byStatus.values().forEach(LongAdder::reset);
+        unknownStatus.reset();
+        bySender.clear();
+        byRecipient.clear();
+        for (LongAdder bucket : lengthBuckets) {
+            bucket.reset();
+        }
+    }
+
+    public long total() {
+        return total.sum();
+    }
+
+    public long count(MessageStatus status) {
+        return statusCounter(status).sum();
+    }
+
+    public long sentBy(String phoneNumber) {
+        LongAdder count = bySender.get(numberKey(phoneNumber));
+        return count == null ? 0 : count.sum();
+    }
+
+    public long receivedBy(String phoneNumber) {
+        LongAdder count = byRecipient.get(numberKey(phoneNumber));
+        return count == null ? 0 : count.sum();
+    }
+
+    public double averageLength() {
+        long messages = total.sum();
+        return messages == 0 ? 0 : (double) totalCharacters.sum() / messages;
+    }
+
+    /**
+     * @return Message counts by content length; entry i counts lengths in
+     *         [{@link #bucketStart(int) bucketStart(i)}, bucketStart(i + 1)).
+     */
+    public long[] lengthHistogram() {
+        long[] counts = new long[LENGTH_BUCKETS];
+        for (int i = 0; i < LENGTH_BUCKETS; i++) {
+            counts[i] = lengthBuckets[i].sum();
+        }
+        return counts;
+    }
+
+    /**
+     * @return The shortest content length counted in the given histogram bucket.
+     */
+    public static int bucketStart(int bucket) {
+        return bucket == 0 ? 0 : 1 << (bucket - 1);
+    }
+
+    /**
+     * @return The k numbers that sent the most messages, busiest first. Costs O(distinct
+     *         senders), independent of how many messages were sent.
+     */
+    public List<Talker> topSenders(int k) {
+        return top(bySender, k);
+    }
+
+    /**
+     * @return The k numbers that received the most messages, busiest first.
+     */
+    public List<Talker> topRecipients(int k) {
+        return top(byRecipient, k);
+    }
+
+    public String report() {
+        StringBuilder sb = new StringBuilder("\n--- Message Stats ---\n");
+        sb.append("Total messages (including sent, stored, disregarded, loaded from file): ").append(total()).append("\n");
+        sb.append("Sent: ").append(count(MessageStatus.SENT))
+          .append(" | Stored: ").append(count(MessageStatus.STORED))
+          .append(" | Disregarded: ").append(count(MessageStatus.DISREGARD)).append("\n");
+        sb.append(String.format("Average message length: %.1f characters%n", averageLength()));
+
+        long[] histogram = lengthHistogram();
+        sb.append("Message lengths:\n");
+        for (int i = 0; i < histogram.length; i++) {
+            if (histogram[i] > 0) {
+                int from = bucketStart(i);
+                int to = bucketStart(i + 1) - 1;
+                sb.append("  ").append(from == to ? String.valueOf(from) : from + "-" + to)
+                  .append(": ").append(histogram[i]).append("\n");
+            }
+        }
+        appendTalkers(sb, "Top senders:", topSenders(3));
+        appendTalkers(sb, "Top recipients:", topRecipients(3));
+        return sb.toString();
+    }
+
+    private static void appendTalkers(StringBuilder sb, String title, List<Talker> talkers) {
+        sb.append(title).append("\n");
+        if (talkers.isEmpty()) {
+            sb.append("  (none)\n");
+        }
+        for (int i = 0; i < talkers.size(); i++) {
+            Talker talker = talkers.get(i);
+            sb.append("  ").append(i + 1).append(". ").append(talker.phoneNumber())
+              .append(" (").append(talker.messages()).append(")\n");
+        }
+    }
+
+    private void update(Message msg, int delta) {
+        total.add(delta);
+        statusCounter(msg.getStatus()).add(delta);
+        counter(bySender, msg.getSender()).add(delta);
+        counter(byRecipient, msg.getRecipient()).add(delta);
+        int length = msg.getContent() == null ? 0 : msg.getContent().length();
+        totalCharacters.add((long) length * delta);
+        lengthBuckets[32 - Integer.numberOfLeadingZeros(length)].add(delta);
+    }
+
+    private LongAdder statusCounter(MessageStatus status) {
+        return status == null ? unknownStatus : byStatus.get(status);
+    }
+
+    private static LongAdder counter(Map<String, LongAdder> counts, String phoneNumber) {
+        return counts.computeIfAbsent(numberKey(phoneNumber), key -> new LongAdder());
+    }
+
+    private static String numberKey(String phoneNumber) {
+        long key = RecipientIndex.canonicalKey(phoneNumber);
+        if (key >= 0) {
+            return "+" + key;
+        }
+        return phoneNumber == null ? "" : phoneNumber.trim();
+    }
+
+    private static List<Talker> top(Map<String, LongAdder> counts, int k) {
+        List<Talker> talkers = new ArrayList<>();
+        for (Map.Entry<String, LongAdder> entry : counts.entrySet()) {
+            long messages = entry.getValue().sum();
+            if (messages > 0) {
+                talkers.add(new Talker(entry.getKey(), messages));
+            }
+        }
+        talkers.sort((a, b) -> a.messages() != b.messages()
+                ? Long.compare(b.messages(), a.messages())
+                : a.phoneNumber().compareTo(b.phoneNumber()));
+        return talkers.size() > k ? new ArrayList<>(talkers.subList(0, Math.max(k, 0))) : talkers;
+    }
+}
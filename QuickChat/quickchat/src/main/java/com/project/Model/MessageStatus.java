@@ -0,0 +1,41 @@
+package com.project.Model;
+
+/**
+ * What happened to a message after it was written. The label is the text stored in a
+ * message's flag.
+ */
+public enum MessageStatus {
+    SENT("Sent"),
+    STORED("Stored"),
+    DISREGARD("Disregard");
+
+    private final String label;
+
+    MessageStatus(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Reads a flag, ignoring case.
+     * @return The status, or null if the flag is not one of the known statuses.
+     */
+    public static MessageStatus fromFlag(String flag) {
+        if (flag != null) {
+            for (MessageStatus status : values()) {
+                if (status.label.equalsIgnoreCase(flag)) {
+                    return status;
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,76 @@
+package com.project.Model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Persistence backend used by the static load/store/delete operations in {@link Message}.
+ * Implementations decide how records are laid out on disk; {@link Message} keeps the
+ * in-memory lists and hands each backend the messages it needs to persist.
+ */
+public interface MessageStorage extends Closeable {
+
+    /**
+     * @return A short, human readable name for log output (usually the file name).
+     */
+    String getName();
+
+    /**
+     * @return true if there is anything on disk to load.
+     */
+    boolean exists();
+
+    /**
+     * Streams every live message, in storage order, into the given sink.
+     */
+    void load(Consumer<Message> sink) throws IOException;
+
+    /**
+     * Persists newly stored messages.
+     * @param newMessages The messages that were just added.
+     * @param allMessages Every message currently in memory, including the new ones.
+     */
+    void append(List<Message> newMessages, List<Message> allMessages) throws IOException;
+
+    /**
+     * Persists newly stored messages without necessarily blocking the caller.
+     * The default implementation writes synchronously and returns a completed future.
+     * @return A future that completes once the messages are durable.
+     */
+    default CompletableFuture<Void> appendAsync(List<Message> newMessages, List<Message> allMessages) {
+        try {
+            append(newMessages, allMessages);
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Persists the removal of a message.
+     * @param deleted The message that was removed.
+     * @param remaining Every message still in memory.
+     */
+    void delete(Message deleted, List<Message> remaining) throws IOException;
+
+    /**
+     * Persists the removal of a message without necessarily blocking the caller.
+     * The default implementation deletes synchronously and returns a completed future.
+     * @param remaining Every message still in memory; only read during this call.
+     * @return A future that completes once the removal is durable.
+     */
+    default CompletableFuture<Void> deleteAsync(Message deleted, List<Message> remaining) {
+        try {
+            delete(deleted, remaining);
+            return CompletableFuture.completedFuture(null);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    default void close() throws IOException {}
+}
@@ -0,0 +1,515 @@
+package com.project.Model;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The messages in memory, their indexes and the storage backend behind them.
+ *
+ * Concurrency contract: every method may be called from any thread.
+ * <ul>
+ *   <li>{@link #snapshot()} is lock free while nothing changes. It returns immutable
+ *       lists that share their arrays with the store, built under the write lock once
+ *       after each change and then shared by every reader until the next change.</li>
+ *   <li>Lookups (by ID, hash, recipient, keyword or length) run under a shared read lock,
+ *       so any number of them proceed in parallel and see a consistent state.</li>
+ *   <li>Stores, deletes, status changes and loads take the write lock only to update the
+ *       indexes and statistics and hand the change to storage. Splitting content into
+ *       words, moving fields into the column store and waiting for the disk all happen
+ *       outside it, so concurrent writers mostly overlap.</li>
+ * </ul>
+ * Storage backends see changes in the same order as the indexes, since they are handed
+ * over under the write lock; a {@link GroupCommitWriter} makes that hand-over a queue
+ * insert.
+ *
+ * Once stored messages are on disk they are published to the {@link MessageFeed}, so
+ * subscribers only ever see messages that will survive a restart.
+ */
+public class MessageStore {
+
+    /**
+     * An immutable view of the store at one point in time.
+     */
+    public record Snapshot(List<Message> messages, Map<MessageStatus, List<Message>> byStatus) {
+        public List<Message> withStatus(MessageStatus status) {
+            return byStatus.get(status);
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+
+    // Guarded by lock.
+    private final OrderedMessages messages = new OrderedMessages();
+    private final StatusBuckets statusBuckets = new StatusBuckets();
+    private final LongIndex<Message> idIndex = new LongIndex<>();
+    private final RecipientIndex recipientIndex = new RecipientIndex();
+    private final LongIndex<Message> hashIndex = new LongIndex<>(); // keyed by hashKey, not the hash itself
+    private final LongIndex<Integer> hashCounts = new LongIndex<>();
+    private final ContentIndex contentIndex = new ContentIndex();
+    private final LengthIndex lengthIndex = new LengthIndex();
+    private MessageStorage storage;
+
+    private final MessageStats stats = new MessageStats();
+    private final MessageFeed feed = new MessageFeed();
+    private volatile MessageColumns columnStore; // null unless the columnar store is on
+    private volatile boolean offHeapContent;
+    private volatile Snapshot snapshot;
+
+    public MessageStore(MessageStorage storage) {
+        this.storage = storage;
+    }
+
+    /**
+     * Switches the persistence backend and closes the previous one. Call {@link #load()}
+     * afterwards to read the new backend's contents.
+     */
+    public void useStorage(MessageStorage newStorage) throws IOException {
+        MessageStorage previous;
+        writeLock.lock();
+        try {
+            previous = storage;
+            storage = newStorage;
+        } finally {
+            writeLock.unlock();
+        }
+        if (previous != newStorage) {
+            previous.close();
+        }
+    }
+
+    public MessageStorage getStorage() {
+        readLock.lock();
+        try {
+            return storage;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * Completes the feed's subscriptions, then flushes and closes the storage backend.
+     */
+    public void close() throws IOException {
+        feed.close();
+        getStorage().close();
+    }
+
+    /**
+     * Turns the columnar store on or off. See {@link MessageColumns}.
+     * @param offHeap Keep content in direct memory rather than on the heap.
+     */
+    public void useColumnarStore(boolean enabled, boolean offHeap) {
+        writeLock.lock();
+        try {
+            MessageColumns columns = columnStore;
+            if (columns != null && (!enabled || offHeap != offHeapContent)) {
+                for (Message m : messages.view()) {
+                    columns.unbind(m);
+                }
+                columnStore = null;
+            }
+            offHeapContent = offHeap;
+            if (enabled && columnStore == null) {
+                columns = newColumnStore(messages.size());
+                for (Message m : messages.view()) {
+                    columns.bind(m);
+                }
+                columnStore = columns;
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Replaces everything in memory with the storage backend's contents. Holds the write
+     * lock for the whole load.
+     * @return The number of messages loaded, or -1 if the backend has nothing stored.
+     */
+    public int load() throws IOException {
+        writeLock.lock();
+        try {
+            for (Message msg : messages.view()) {
+                detach(msg);
+            }
+            messages.clear();
+            statusBuckets.clear();
+            idIndex.clear();
+            recipientIndex.clear();
+            hashIndex.clear();
+            hashCounts.clear();
+            contentIndex.clear();
+            lengthIndex.clear();
+            stats.clear();
+            snapshot = null;
+            if (columnStore != null) {
+                columnStore = newColumnStore(0); // messages from before the reload keep the old one
+            }
+            if (!storage.exists()) {
+                return -1;
+            }
+            MessageColumns columns = columnStore;
+            storage.load(msg -> {
+                if (columns != null) {
+                    columns.bind(msg);
+                }
+                insert(msg, ContentIndex.tokenize(msg.getContent()));
+                stats.record(msg);
+            });
+            return messages.size();
+        } finally {
+            snapshot = null;
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Adds the messages to memory and hands them to the storage backend.
+     * @return A future that completes once the messages are on disk and published.
+     */
+    public CompletableFuture<Void> storeAsync(List<Message> newMessages) {
+        List<List<String>> tokens = new ArrayList<>(newMessages.size());
+        MessageColumns columns = columnStore;
+        for (Message msg : newMessages) {
+            tokens.add(ContentIndex.tokenize(msg.getContent()));
+            if (columns != null) {
+                columns.bind(msg);
+            }
+        }
+
+        CompletableFuture<Void> written;
+        writeLock.lock();
+        try {
+            for (int i = 0; i < newMessages.size(); i++) {
+                insert(newMessages.get(i), tokens.get(i));
+                stats.record(newMessages.get(i));
+            }
+            snapshot = null;
+            written = storage.appendAsync(newMessages, messages.view());
+        } finally {
+            writeLock.unlock();
+        }
+
+        return written.thenRun(() -> feed.publish(newMessages));
+    }
+
+    /**
+     * Removes the first stored message with this hash from memory and from storage.
+     * @return The removed message, or null if no message has this hash.
+     * @throws IOException If storage failed; the message is gone from memory regardless.
+     */
+    public Message delete(String hash) throws IOException {
+        Message msg;
+        List<String> tokens;
+        CompletableFuture<Void> deleted;
+        writeLock.lock();
+        try {
+            msg = firstWithHash(hash);
+            if (msg == null) {
+                return null;
+            }
+            tokens = ContentIndex.tokenize(msg.getContent());
+            messages.remove(msg);
+            statusBuckets.remove(msg);
+            unindex(msg, tokens);
+            detach(msg);
+            stats.forget(msg);
+            snapshot = null;
+            deleted = storage.deleteAsync(msg, messages.view());
+        } finally {
+            writeLock.unlock();
+        }
+
+        try {
+            deleted.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+        return msg;
+    }
+
+    /**
+     * Files a stored message under its new status. Called by {@link Message#setFlag}.
+     */
+    void statusChanged(Message msg, MessageStatus previous) {
+        writeLock.lock();
+        try {
+            if (!statusBuckets.move(msg, previous)) {
+                return;
+            }
+            recipientIndex.move(msg, previous);
+            stats.statusChanged(previous, msg.getStatus());
+            snapshot = null;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Applies a change to a stored message's ID, sender, recipient, content or number,
+     * taking the message out of the indexes before the change and filing it again after.
+     * Called by the {@link Message} setters; the change is not written to storage.
+     */
+    void fieldsChanged(Message msg, Runnable change) {
+        writeLock.lock();
+        try {
+            if (msg.owner != this) {
+                change.run(); // deleted meanwhile
+                return;
+            }
+            unindex(msg, ContentIndex.tokenize(msg.getContent()));
+            stats.forget(msg);
+            change.run();
+            index(msg, ContentIndex.tokenize(msg.getContent()));
+            stats.record(msg);
+            snapshot = null;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * @return An immutable view of the messages in memory. Free when nothing has changed
+     *         since the last call. Otherwise it is built once and shared by later callers,
+     *         in O(1) after stores and in O(n) after deletes and status changes.
+     */
+    public Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        writeLock.lock(); // freezing marks the lists as shared
+        try {
+            current = snapshot;
+            if (current == null) {
+                Map<MessageStatus, List<Message>> byStatus = new EnumMap<>(MessageStatus.class);
+                for (MessageStatus status : MessageStatus.values()) {
+                    byStatus.put(status, statusBuckets.freeze(status));
+                }
+                current = new Snapshot(messages.freeze(), Collections.unmodifiableMap(byStatus));
+                snapshot = current;
+            }
+            return current;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public int size() {
+        readLock.lock();
+        try {
+            return messages.size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public MessageStats getStats() {
+        return stats;
+    }
+
+    /**
+     * @return The feed that newly stored sent messages are pushed to.
+     */
+    public MessageFeed getFeed() {
+        return feed;
+    }
+
+    /**
+     * @return The first stored message with this ID, or null.
+     */
+    public Message findById(String messageId) {
+        long key = Message.idKey(messageId);
+        readLock.lock();
+        try {
+            if (key >= 0) {
+                return idIndex.get(key);
+            }
+            for (Message m : messages.view()) {
+                if (messageId != null && messageId.equals(m.getMessageID())) {
+                    return m;
+                }
+            }
+            return null;
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * @return The first stored message with this hash, or null.
+     */
+    public Message findByHash(String hash) {
+        readLock.lock();
+        try {
+            return firstWithHash(hash);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * @return The recipient's messages with any of the given statuses, grouped by status.
+     */
+    public List<Message> findByRecipient(String recipient, MessageStatus... statuses) {
+        readLock.lock();
+        try {
+            return recipientIndex.find(recipient, statuses);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * @return The messages matching a keyword query, see {@link ContentIndex}.
+     */
+    public List<Message> findByKeyword(String query) {
+        readLock.lock();
+        try {
+            return contentIndex.search(query);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /**
+     * @return The message with the longest content, or null.
+     */
+    public Message longest() {
+        readLock.lock();
+        try {
+            return lengthIndex.longest();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public List<Message> longest(int k) {
+        readLock.lock();
+        try {
+            return lengthIndex.longest(k);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public List<Message> shortest(int k) {
+        readLock.lock();
+        try {
+            return lengthIndex.shortest(k);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private void insert(Message msg, List<String> tokens) {
+        msg.setMessageNumber(messages.size()); // Current size is its new index
+        messages.add(msg);
+        msg.owner = this;
+        statusBuckets.add(msg);
+        index(msg, tokens);
+    }
+
+    /**
+     * Files the message under its ID, recipient, content, length and hash.
+     */
+    private void index(Message msg, List<String> tokens) {
+        long idKey = Message.idKey(msg.getMessageID());
+        if (idKey >= 0) {
+            idIndex.putIfAbsent(idKey, msg); // first stored wins, like the old linear search
+            Message.getIdAllocator().observe(idKey);
+        }
+        recipientIndex.add(msg);
+        contentIndex.add(msg, tokens);
+        lengthIndex.add(msg);
+        long hashKey = hashKey(msg.getHash());
+        hashIndex.putIfAbsent(hashKey, msg);
+        Integer count = hashCounts.get(hashKey);
+        hashCounts.put(hashKey, count == null ? 1 : count + 1);
+    }
+
+    private void unindex(Message msg, List<String> tokens) {
+        long idKey = Message.idKey(msg.getMessageID());
+        if (idKey >= 0) {
+            idIndex.remove(idKey, msg);
+        }
+        recipientIndex.remove(msg);
+        contentIndex.remove(msg, tokens);
+        lengthIndex.remove(msg);
+        unindexHash(hashKey(msg.getHash()), msg);
+    }
+
+    private void unindexHash(long hashKey, Message msg) {
+        Integer count = hashCounts.get(hashKey);
+        if (count == null || count <= 1) {
+            hashCounts.remove(hashKey);
+            hashIndex.remove(hashKey);
+            return;
+        }
+        hashCounts.put(hashKey, count - 1);
+        if (hashIndex.get(hashKey) == msg) {
+            // Another message shares this key; let the next oldest take over the entry.
+            for (Message m : messages.view()) {
+                if (m != msg && hashKey(m.getHash()) == hashKey) {
+                    hashIndex.put(hashKey, m);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Looks the hash up through the hash index. Two different hashes with the same key
+     * share an entry, so a mismatch falls back to a scan; that takes a 64 bit collision.
+     */
+    private Message firstWithHash(String hash) {
+        Message msg = hashIndex.get(hashKey(hash));
+        if (msg == null || hash.equals(msg.getHash())) {
+            return msg;
+        }
+        for (Message m : messages.view()) {
+            if (hash.equals(m.getHash())) {
+                return m;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 64 bit FNV-1a digest of a message hash. The index keeps this instead of the hash,
+     * which holds the whole content and would undo keeping content in a column store.
+     */
+    private static long hashKey(String hash) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < hash.length(); i++) {
+            h = (h ^ hash.charAt(i)) * 0x100000001b3L;
+        }
+        return h;
+    }
+
+    /**
+     * Lets go of a message leaving the store, so later setters no longer re-file it here.
+     */
+    private static void detach(Message msg) {
+        msg.owner = null;
+        MessageColumns.Binding binding = msg.binding;
+        if (binding != null) {
+            binding.columns().unbind(msg); // older snapshots then read the copied back fields
+        }
+    }
+
+    private MessageColumns newColumnStore(int expectedMessages) {
+        ContentArena arena = offHeapContent ? new OffHeapContentArena() : new HeapContentArena();
+        return new MessageColumns(Math.max(1024, expectedMessages), arena);
+    }
+}
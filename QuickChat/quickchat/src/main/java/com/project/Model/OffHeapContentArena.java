@@ -0,0 +1,73 @@
+package com.project.Model;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Content arena in direct memory, outside the Java heap, so message bodies add nothing
+ * to the heap the garbage collector has to trace or copy. Content is written into fixed
+ * size direct buffers (chunks); a body never spans two chunks, and one larger than a chunk
+ * gets a chunk of its own. An address is the chunk number in the high 32 bits and the
+ * offset in the low 32 bits.
+ *
+ * The memory of an arena is returned to the system once the arena itself is garbage
+ * collected, which is what happens to the old arena after the column store compacts.
+ */
+public class OffHeapContentArena implements ContentArena {
+    public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+    private final int chunkSize;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private ByteBuffer current;
+    private long used;
+
+    public OffHeapContentArena() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    public OffHeapContentArena(int chunkSize) {
+        if (chunkSize < 1024) {
+            throw new IllegalArgumentException("Chunk size must be at least 1 KB");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public long append(byte[] data) {
+        if (current == null || current.remaining() < data.length) {
+            current = ByteBuffer.allocateDirect(Math.max(chunkSize, data.length));
+            chunks.add(current);
+        }
+        long address = (long) (chunks.size() - 1) << 32 | current.position();
+        current.put(data);
+        used += data.length;
+        return address;
+    }
+
+    @Override
+    public byte[] read(long address, int length) {
+        byte[] data = new byte[length];
+        chunks.get((int) (address >>> 32)).get((int) address, data);
+        return data;
+    }
+
+    @Override
+    public long bytesUsed() {
+        return used;
+    }
+
+    /** @return Direct memory reserved by this arena, including unused chunk space. */
+    public long bytesReserved() {
+        long reserved = 0;
+        for (ByteBuffer chunk : chunks) {
+            reserved += chunk.capacity();
+        }
+        return reserved;
+    }
+
+    @Override
+    public ContentArena newEmpty(long expectedBytes) {
+        return new OffHeapContentArena(chunkSize);
+    }
+}
@@ -0,0 +1,175 @@
+package com.project.Model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Insertion ordered set of messages with O(1) add and remove, plus a read-only
+ * {@link List} view of it. Messages sit in an array in the order they were added; a
+ * removal leaves a hole, and the holes are closed up once they fill half the array.
+ *
+ * {@link #freeze()} hands out an immutable list that shares the array rather than
+ * copying it. Adds only write past the end of that list, so they stay O(1); the first
+ * removal after a freeze copies the array, so the frozen list never changes.
+ * Not thread safe, including the live view; frozen lists can be read from any thread.
+ */
+class OrderedMessages {
+    private static final int MIN_CAPACITY = 16;
+
+    private Message[] slots = new Message[MIN_CAPACITY];
+    private int end;          // slots in use, holes included
+    private int holes;
+    private boolean shared;   // slots[0, end) also backs a frozen list
+    private final Map<Message, Integer> positions = new HashMap<>();
+    private final List<Message> view = new View();
+
+    boolean add(Message msg) {
+        if (positions.containsKey(msg)) {
+            return false;
+        }
+        if (end == slots.length) {
+            if (holes * 2 >= end) {
+                compact();
+            } else {
+                slots = Arrays.copyOf(slots, slots.length * 2);
+                shared = false;
+            }
+        }
+        positions.put(msg, end);
+        slots[end++] = msg;
+        return true;
+    }
+
+    boolean remove(Message msg) {
+        Integer position = positions.remove(msg);
+        if (position == null) {
+            return false;
+        }
+        if (shared) {
+            slots = slots.clone();
+            shared = false;
+        }
+        slots[position] = null;
+        holes++;
+        if (holes > MIN_CAPACITY && holes * 2 > end) {
+            compact();
+        }
+        return true;
+    }
+
+    boolean contains(Message msg) {
+        return positions.containsKey(msg);
+    }
+
+    void clear() {
+        slots = new Message[MIN_CAPACITY];
+        end = 0;
+        holes = 0;
+        shared = false;
+        positions.clear();
+    }
+
+    int size() {
+        return positions.size();
+    }
+
+    /**
+     * @return A live read-only view. {@code get(i)} is O(1) while no removal is waiting
+     *         to be closed up, O(n) otherwise; iterating it is O(n) either way.
+     */
+    List<Message> view() {
+        return view;
+    }
+
+    /**
+     * @return An immutable list of the messages as they are now. Shares the array with
+     *         this set, so it is O(1) unless holes have to be closed up first.
+     */
+    List<Message> freeze() {
+        if (holes > 0) {
+            compact();
+        }
+        shared = true;
+        return Collections.unmodifiableList(Arrays.asList(slots).subList(0, end));
+    }
+
+    /**
+     * Moves the messages into a fresh array without holes. The old array is left alone,
+     * since a frozen list may still be reading it.
+     */
+    private void compact() {
+        Message[] compacted = new Message[Math.max(MIN_CAPACITY, size() * 2)];
+        int n = 0;
+        for (int i = 0; i < end; i++) {
+            Message msg = slots[i];
+            if (msg != null) {
+                compacted[n] = msg;
+                positions.put(msg, n++);
+            }
+        }
+        slots = compacted;
+        end = n;
+        holes = 0;
+        shared = false;
+    }
+
+    private final class View extends AbstractList<Message> {
+        @Override
+        public int size() {
+            return positions.size();
+        }
+
+        @Override
+        public Iterator<Message> iterator() {
+            Message[] slots = OrderedMessages.this.slots;
+            int end = OrderedMessages.this.end;
+            return new Iterator<>() {
+                private int next = skipHoles(0);
+
+                private int skipHoles(int i) {
+                    while (i < end && slots[i] == null) {
+                        i++;
+                    }
+                    return i;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next < end;
+                }
+
+                @Override
+                public Message next() {
+                    if (next >= end) {
+                        throw new NoSuchElementException();
+                    }
+                    Message msg = slots[next];
+                    next = skipHoles(next + 1);
+                    return msg;
+                }
+            };
+        }
+
+        @Override
+        public Message get(int index) {
+            if (index < 0 || index >= positions.size()) {
+                throw new IndexOutOfBoundsException("Index " + index + ", size " + positions.size());
+            }
+            if (holes == 0) {
+                return slots[index];
+            }
+            int seen = 0;
+            for (int i = 0; ; i++) {
+                if (slots[i] != null && seen++ == index) {
+                    return slots[i];
+                }
+            }
+        }
+    }
+}
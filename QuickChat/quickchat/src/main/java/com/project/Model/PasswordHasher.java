@@ -0,0 +1,112 @@
+package com.project.Model;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Hashes passwords with PBKDF2-HMAC-SHA256 and a random salt per password. The stored
+ * form is {@code pbkdf2-sha256$iterations$salt$hash} with the salt and hash in Base64, so
+ * the iteration count can be raised later without invalidating existing passwords.
+ *
+ * Hashing is deliberately slow; see {@link SessionManager} for not paying for it on
+ * every request.
+ */
+public class PasswordHasher {
+    /** The OWASP recommendation for PBKDF2-HMAC-SHA256. */
+    public static final int DEFAULT_ITERATIONS = 600_000;
+    /**
+     * Stored hashes claiming more iterations than this are refused rather than verified,
+     * so a planted hash cannot make every login burn minutes of CPU.
+     */
+    public static final int MAX_ITERATIONS = 10_000_000;
+
+    private static final String PREFIX = "pbkdf2-sha256$";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private final int iterations;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * A hasher using {@value #DEFAULT_ITERATIONS} iterations, or the
+     * {@code quickchat.pbkdf2.iterations} system property when set.
+     */
+    public PasswordHasher() {
+        this(Integer.getInteger("quickchat.pbkdf2.iterations", DEFAULT_ITERATIONS));
+    }
+
+    public PasswordHasher(int iterations) {
+        if (iterations < 1 || iterations > MAX_ITERATIONS) {
+            throw new IllegalArgumentException("Iterations must be between 1 and " + MAX_ITERATIONS);
+        }
+        this.iterations = iterations;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * @return The password's stored form, with a fresh salt.
+     */
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + iterations + "$" + base64.encodeToString(salt) + "$"
+                + base64.encodeToString(derive(password, salt, iterations));
+    }
+
+    /**
+     * @param stored A value returned by {@link #hash}.
+     * @return Whether the password matches. False for a stored value that is not a hash or
+     *         asks for more than {@value #MAX_ITERATIONS} iterations.
+     */
+    public boolean verify(String password, String stored) {
+        if (password == null || !isHash(stored)) {
+            return false;
+        }
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) {
+            return false;
+        }
+        try {
+            int storedIterations = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            if (storedIterations < 1 || storedIterations > MAX_ITERATIONS
+                    || salt.length != SALT_BYTES || expected.length != HASH_BITS / 8) {
+                return false;
+            }
+            return MessageDigest.isEqual(expected, derive(password, salt, storedIterations));
+        } catch (IllegalArgumentException e) {
+            return false; // malformed number or Base64
+        }
+    }
+
+    /**
+     * @return Whether the value looks like the stored form rather than a plaintext password.
+     *         Only a prefix check, so only apply it to values read from our own storage,
+     *         never to passwords a user typed.
+     */
+    public static boolean isHash(String stored) {
+        return stored != null && stored.startsWith(PREFIX);
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
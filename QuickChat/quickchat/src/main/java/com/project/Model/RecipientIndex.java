@@ -0,0 +1,143 @@
+package com.project.Model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Secondary index from recipient phone number to that recipient's messages, split by
+ * status. Numbers are keyed by their canonical form, so "+27831234567" and "0831234567"
+ * find the same messages. Numbers that are not South African cell numbers are kept under
+ * their text with surrounding spaces trimmed instead. A recipient is dropped from the
+ * index once its last message is removed.
+ *
+ * Lookups cost O(results) and adding or removing a message is O(1). Not thread safe.
+ */
+public class RecipientIndex {
+    private static final int OTHER = MessageStatus.values().length; // partition for unknown flags
+
+    private static final long COUNTRY_CODE = 27L;
+    private static final long SUBSCRIBER_DIGITS = 1_000_000_000L;
+
+    private final LongIndex<List<LinkedHashSet<Message>>> byCanonical = new LongIndex<>();
+    private final Map<String, List<LinkedHashSet<Message>>> byRawNumber = new HashMap<>();
+
+    /**
+     * Canonical numeric key for a phone number: the country code followed by the nine
+     * subscriber digits, so both "+27831234567" and "0831234567" become 27831234567.
+     * @return The key, or -1 if the number is not in either format.
+     */
+    public static long canonicalKey(String phoneNumber) {
+        if (phoneNumber == null) {
+            return -1;
+        }
+        String number = phoneNumber.trim();
+        int start;
+        if (number.length() == 12 && number.startsWith("+27")) {
+            start = 3;
+        } else if (number.length() == 10 && number.charAt(0) == '0') {
+            start = 1;
+        } else {
+            return -1;
+        }
+        long subscriber = 0;
+        for (int i = start; i < number.length(); i++) {
+            char c = number.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            subscriber = subscriber * 10 + (c - '0');
+        }
+        return COUNTRY_CODE * SUBSCRIBER_DIGITS + subscriber;
+    }
+
+    /**
+     * @return The number of recipients with at least one indexed message.
+     */
+    public int size() {
+        return byCanonical.size() + byRawNumber.size();
+    }
+
+    public void add(Message msg) {
+        partitions(msg.getRecipient(), true).get(slot(msg.getStatus())).add(msg);
+    }
+
+    public void remove(Message msg) {
+        List<LinkedHashSet<Message>> partitions = partitions(msg.getRecipient(), false);
+        if (partitions == null || !partitions.get(slot(msg.getStatus())).remove(msg)) {
+            return;
+        }
+        for (LinkedHashSet<Message> partition : partitions) {
+            if (!partition.isEmpty()) {
+                return;
+            }
+        }
+        long key = canonicalKey(msg.getRecipient());
+        if (key >= 0) {
+            byCanonical.remove(key);
+        } else {
+            byRawNumber.remove(rawKey(msg.getRecipient()));
+        }
+    }
+
+    /**
+     * Moves a message that was indexed under {@code from} to its current status.
+     */
+    public void move(Message msg, MessageStatus from) {
+        List<LinkedHashSet<Message>> partitions = partitions(msg.getRecipient(), false);
+        if (partitions != null && slot(from) != slot(msg.getStatus()) && partitions.get(slot(from)).remove(msg)) {
+            partitions.get(slot(msg.getStatus())).add(msg);
+        }
+    }
+
+    public void clear() {
+        byCanonical.clear();
+        byRawNumber.clear();
+    }
+
+    /**
+     * @return The recipient's messages with any of the given statuses, grouped by status
+     *         in the order given and in the order they were stored within each status.
+     */
+    public List<Message> find(String recipient, MessageStatus... statuses) {
+        List<Message> found = new ArrayList<>();
+        List<LinkedHashSet<Message>> partitions = partitions(recipient, false);
+        if (partitions == null) {
+            return found;
+        }
+        for (MessageStatus status : statuses) {
+            found.addAll(partitions.get(slot(status)));
+        }
+        return found;
+    }
+
+    private List<LinkedHashSet<Message>> partitions(String recipient, boolean create) {
+        long key = canonicalKey(recipient);
+        List<LinkedHashSet<Message>> partitions = key >= 0 ? byCanonical.get(key) : byRawNumber.get(rawKey(recipient));
+        if (partitions == null && create) {
+            partitions = new ArrayList<>(OTHER + 1);
+            for (int i = 0; i <= OTHER; i++) {
+                partitions.add(new LinkedHashSet<>());
+            }
+            if (key >= 0) {
+                byCanonical.put(key, partitions);
+            } else {
+                byRawNumber.put(rawKey(recipient), partitions);
+            }
+        }
+        return partitions;
+    }
+
+    /**
+     * Trims like {@link #canonicalKey(String)} does, so " 12345" and "12345" match.
+     */
+    private static String rawKey(String recipient) {
+        return recipient == null ? null : recipient.trim();
+    }
+
+    private static int slot(MessageStatus status) {
+        return status == null ? OTHER : status.ordinal();
+    }
+}
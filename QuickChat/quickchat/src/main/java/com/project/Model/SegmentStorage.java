@@ -0,0 +1,349 @@
+package com.project.Model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Binary message store made of fixed-size segment files that are memory mapped, so scans
+ * and lookups read straight from the page cache instead of copying through the heap.
+ *
+ * Records are appended to the newest segment; when one does not fit, a new segment is
+ * started. Record layout:
+ * [payload length][CRC32 of payload][type] then, for a stored message,
+ * [messageID][sender][recipient][content][flag] as length prefixed UTF-8 strings
+ * (length -1 for null), or for a delete [messageID][address of the deleted record]. A
+ * zero length marks the end of the data in a segment, which is what a freshly mapped file
+ * contains.
+ *
+ * Every record has an address, the segment index in the high 32 bits and the offset in
+ * the low 32 bits, which {@link #read(long)} uses for direct lookups. Deletes name the
+ * address they delete because message IDs need not be unique; deletes without one, written
+ * by older versions, remove every earlier record with the ID.
+ *
+ * {@link #append} and {@link #delete} force the pages they wrote to disk before they
+ * return, one force per batch, so a stored message survives a crash of the machine and
+ * not just of the process. {@link #put} leaves that to the caller's {@link #sync()}.
+ */
+public class SegmentStorage implements MessageStorage {
+    public static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    private static final int HEADER_BYTES = 8; // payload length + CRC
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final String PREFIX = "segment-";
+    private static final String SUFFIX = ".dat";
+
+    private interface RecordVisitor {
+        void visit(long address, byte type, ByteBuffer payload) throws IOException;
+    }
+
+    private static final class Segment {
+        final int index;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        int end; // offset of the first free byte
+        int synced; // data before this offset has been forced to disk
+
+        Segment(int index, FileChannel channel, MappedByteBuffer buffer) {
+            this.index = index;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+
+    private final File directory;
+    private final int segmentSize;
+    private final List<Segment> segments = new ArrayList<>();
+    private ByteBuffer scratch = ByteBuffer.allocate(4096);
+    private boolean opened;
+
+    public SegmentStorage(File directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public SegmentStorage(File directory, int segmentSize) {
+        if (segmentSize < 1024) {
+            throw new IllegalArgumentException("Segment size must be at least 1 KB");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    public File getDirectory() { return directory; }
+
+    public synchronized int getSegmentCount() throws IOException {
+        open();
+        return segments.size();
+    }
+
+    @Override
+    public String getName() { return directory.getName(); }
+
+    @Override
+    public boolean exists() {
+        File[] files = segmentFiles();
+        return files != null && files.length > 0;
+    }
+
+    @Override
+    public synchronized void load(Consumer<Message> sink) throws IOException {
+        open();
+        Set<Long> deletedRecords = new HashSet<>();
+        Map<String, Long> deletedAt = new HashMap<>(); // deletes without an address
+        forEachRecord((address, type, payload) -> {
+            if (type == DELETE) {
+                String messageID = readString(payload);
+                if (payload.remaining() >= Long.BYTES) {
+                    deletedRecords.add(payload.getLong());
+                } else {
+                    deletedAt.put(messageID, address);
+                }
+            }
+        });
+        forEachRecord((address, type, payload) -> {
+            if (type != PUT || deletedRecords.contains(address)) {
+                return;
+            }
+            Message msg = decode(payload);
+            msg.storageKey = address;
+            Long deleted = deletedAt.get(msg.getMessageID());
+            if (deleted == null || deleted < address) {
+                sink.accept(msg);
+            }
+        });
+    }
+
+    @Override
+    public synchronized void append(List<Message> newMessages, List<Message> allMessages) throws IOException {
+        for (Message msg : newMessages) {
+            put(msg);
+        }
+        sync();
+    }
+
+    /**
+     * Appends one message without forcing it to disk.
+     * @return The address of its record, for {@link #read(long)}.
+     */
+    public synchronized long put(Message msg) throws IOException {
+        scratch.clear();
+        scratch = putString(scratch, msg.getMessageID());
+        scratch = putString(scratch, msg.getSender());
+        scratch = putString(scratch, msg.getRecipient());
+        scratch = putString(scratch, msg.getContent());
+        scratch = putString(scratch, msg.getFlag());
+        scratch.flip();
+        long address = writeRecord(PUT, scratch);
+        msg.storageKey = address;
+        return address;
+    }
+
+    @Override
+    public synchronized void delete(Message deleted, List<Message> remaining) throws IOException {
+        scratch.clear();
+        scratch = putString(scratch, deleted.getMessageID());
+        if (deleted.storageKey >= 0) {
+            scratch = ensureRemaining(scratch, Long.BYTES);
+            scratch.putLong(deleted.storageKey);
+        }
+        scratch.flip();
+        writeRecord(DELETE, scratch);
+        sync();
+    }
+
+    /**
+     * Decodes the stored message at the given address straight from the mapped segment.
+     */
+    public synchronized Message read(long address) throws IOException {
+        open();
+        int index = (int) (address >>> 32);
+        int offset = (int) address;
+        if (index < 0 || index >= segments.size()) {
+            throw new IOException("No segment " + index + " in " + getName());
+        }
+        ByteBuffer view = segments.get(index).buffer.duplicate();
+        int length = view.getInt(offset);
+        if (length <= 0 || view.get(offset + HEADER_BYTES) != PUT) {
+            throw new IOException("No message stored at address " + Long.toHexString(address));
+        }
+        view.limit(offset + HEADER_BYTES + length).position(offset + HEADER_BYTES + 1);
+        return decode(view);
+    }
+
+    /**
+     * Forces the pages written since the last sync to disk.
+     */
+    public synchronized void sync() {
+        for (Segment segment : segments) {
+            if (segment.synced < segment.end) {
+                segment.buffer.force(segment.synced, segment.end - segment.synced);
+                segment.synced = segment.end;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        sync();
+        for (Segment segment : segments) {
+            segment.channel.close();
+        }
+        segments.clear();
+        opened = false;
+    }
+
+    private File[] segmentFiles() {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(PREFIX) && name.endsWith(SUFFIX));
+        if (files != null) {
+            Arrays.sort(files);
+        }
+        return files;
+    }
+
+    private void open() throws IOException {
+        if (opened) {
+            return;
+        }
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        File[] files = segmentFiles();
+        for (int i = 0; i < files.length; i++) {
+            Segment segment = map(i);
+            segment.end = scanEnd(segment);
+            segment.synced = segment.end;
+            segments.add(segment);
+        }
+        opened = true;
+    }
+
+    private Segment map(int index) throws IOException {
+        File file = new File(directory, String.format("%s%06d%s", PREFIX, index, SUFFIX));
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new Segment(index, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+    }
+
+    /**
+     * Walks a segment's records to find where its valid data ends. A bad checksum means
+     * the write was interrupted, so everything from there on is ignored and overwritten.
+     */
+    private int scanEnd(Segment segment) {
+        ByteBuffer view = segment.buffer.duplicate();
+        int offset = 0;
+        CRC32 crc = new CRC32();
+        while (offset + HEADER_BYTES < segmentSize) {
+            int length = view.getInt(offset);
+            if (length <= 0 || offset + HEADER_BYTES + length > segmentSize) {
+                break;
+            }
+            view.limit(offset + HEADER_BYTES + length).position(offset + HEADER_BYTES);
+            crc.reset();
+            crc.update(view);
+            view.limit(segmentSize);
+            if ((int) crc.getValue() != view.getInt(offset + 4)) {
+                break;
+            }
+            offset += HEADER_BYTES + length;
+        }
+        return offset;
+    }
+
+    private void forEachRecord(RecordVisitor visitor) throws IOException {
+        for (Segment segment : segments) {
+            ByteBuffer view = segment.buffer.duplicate();
+            int offset = 0;
+            while (offset < segment.end) {
+                int length = view.getInt(offset);
+                view.limit(offset + HEADER_BYTES + length).position(offset + HEADER_BYTES);
+                byte type = view.get();
+                visitor.visit(((long) segment.index << 32) | offset, type, view);
+                view.limit(view.capacity());
+                offset += HEADER_BYTES + length;
+            }
+        }
+    }
+
+    private long writeRecord(byte type, ByteBuffer body) throws IOException {
+        open();
+        int length = 1 + body.remaining();
+        if (HEADER_BYTES + length + 4 > segmentSize) {
+            throw new IOException("Message of " + length + " bytes does not fit in a " + segmentSize + " byte segment");
+        }
+        Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (segment == null || segment.end + HEADER_BYTES + length + 4 > segmentSize) {
+            segment = map(segments.size());
+            segment.channel.force(true); // the new file's length
+            segments.add(segment);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(body.duplicate());
+
+        int offset = segment.end;
+        ByteBuffer view = segment.buffer.duplicate();
+        view.position(offset + HEADER_BYTES);
+        view.put(type);
+        view.put(body);
+        view.putInt(offset + 4, (int) crc.getValue());
+        view.putInt(offset, length); // written last, so a torn record is never seen as complete
+        segment.end = offset + HEADER_BYTES + length;
+        return ((long) segment.index << 32) | offset;
+    }
+
+    private static Message decode(ByteBuffer payload) {
+        Message msg = new Message();
+        msg.setMessageID(readString(payload));
+        msg.setSender(readString(payload));
+        msg.setRecipient(readString(payload));
+        msg.setContent(readString(payload));
+        msg.setFlag(readString(payload));
+        return msg;
+    }
+
+    private static ByteBuffer putString(ByteBuffer out, String value) {
+        byte[] bytes = value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+        out = ensureRemaining(out, 4 + (bytes == null ? 0 : bytes.length));
+        if (bytes == null) {
+            out.putInt(-1);
+        } else {
+            out.putInt(bytes.length);
+            out.put(bytes);
+        }
+        return out;
+    }
+
+    private static ByteBuffer ensureRemaining(ByteBuffer out, int needed) {
+        if (out.remaining() >= needed) {
+            return out;
+        }
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + needed));
+        out.flip();
+        return grown.put(out);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,152 @@
+package com.project.Model;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Logged in sessions. The password is checked once, at login, and the session gets a
+ * random token; presenting the token again resumes the session without hashing the
+ * password.
+ *
+ * Sessions live in an access ordered map, so finding, touching and evicting a session
+ * are all O(1). A session expires once it has been idle for the time to live. When the
+ * map is full the least recently used session is dropped to make room. A single lock
+ * guards the map; it is a {@link ReentrantLock} so waiting virtual threads do not pin
+ * their carriers.
+ */
+public class SessionManager {
+    public static final long DEFAULT_TTL_MINUTES = 30;
+    public static final int DEFAULT_MAX_SESSIONS = 100_000;
+
+    private static final int TOKEN_BYTES = 32;
+
+    private static final class Session {
+        final User user;
+        long lastUsed;
+
+        Session(User user, long lastUsed) {
+            this.user = user;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    private final long ttlNanos;
+    private final int maxSessions;
+    private final LongSupplier clockNanos;
+    private final SecureRandom random = new SecureRandom();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<String, Session> sessions;
+
+    public SessionManager() {
+        this(DEFAULT_TTL_MINUTES, TimeUnit.MINUTES, DEFAULT_MAX_SESSIONS, System::nanoTime);
+    }
+
+    /**
+     * @param ttl How long a session may sit unused before it expires.
+     * @param maxSessions The most sessions kept; the least recently used go first.
+     * @param clockNanos A monotonic clock in nanoseconds.
+     */
+    public SessionManager(long ttl, TimeUnit unit, int maxSessions, LongSupplier clockNanos) {
+        if (ttl <= 0 || maxSessions < 1) {
+            throw new IllegalArgumentException("Time to live and maximum sessions must be positive");
+        }
+        this.ttlNanos = unit.toNanos(ttl);
+        this.maxSessions = maxSessions;
+        this.clockNanos = clockNanos;
+        this.sessions = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Session> eldest) {
+                return size() > SessionManager.this.maxSessions;
+            }
+        };
+    }
+
+    /**
+     * Starts a session for a user whose password has just been checked.
+     * @return The session token.
+     */
+    public String open(User user) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        long now = clockNanos.getAsLong();
+        lock.lock();
+        try {
+            removeExpired(now);
+            sessions.put(token, new Session(user, now));
+        } finally {
+            lock.unlock();
+        }
+        return token;
+    }
+
+    /**
+     * Looks the token up and, if the session is still live, counts this as a use.
+     * @return The session's user, or null if the token is unknown or has expired.
+     */
+    public User resume(String token) {
+        if (token == null) {
+            return null;
+        }
+        long now = clockNanos.getAsLong();
+        lock.lock();
+        try {
+            Session session = sessions.get(token);
+            if (session == null) {
+                return null;
+            }
+            if (now - session.lastUsed >= ttlNanos) {
+                sessions.remove(token);
+                return null;
+            }
+            session.lastUsed = now;
+            return session.user;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ends the session, if it exists.
+     */
+    public void close(String token) {
+        lock.lock();
+        try {
+            sessions.remove(token);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return The number of sessions held, including expired ones not yet removed.
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return sessions.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops expired sessions from the least recently used end; stops at the first live one,
+     * since everything after it was used more recently.
+     */
+    private void removeExpired(long now) {
+        Iterator<Session> it = sessions.values().iterator();
+        while (it.hasNext()) {
+            if (now - it.next().lastUsed < ttlNanos) {
+                return;
+            }
+            it.remove();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.project.Model;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Messages partitioned by {@link MessageStatus}. Each partition is an insertion ordered
+ * hash set, so adding, removing and moving a message between statuses are all O(1) and
+ * each partition still lists its messages in the order they were added. Messages whose
+ * flag is not a known status are kept in a partition of their own, so they can still be
+ * moved once their flag is corrected. Not thread safe.
+ */
+public class StatusBuckets {
+    private final Map<MessageStatus, OrderedMessages> buckets = new EnumMap<>(MessageStatus.class);
+    private final OrderedMessages unknown = new OrderedMessages();
+
+    public StatusBuckets() {
+        for (MessageStatus status : MessageStatus.values()) {
+            buckets.put(status, new OrderedMessages());
+        }
+    }
+
+    public void add(Message msg) {
+        bucket(msg.getStatus()).add(msg);
+    }
+
+    public void remove(Message msg) {
+        bucket(msg.getStatus()).remove(msg);
+    }
+
+    /**
+     * Moves a message that was filed under {@code from} to its current status.
+     * @return True if the message was filed under {@code from} and has moved.
+     */
+    public boolean move(Message msg, MessageStatus from) {
+        MessageStatus to = msg.getStatus();
+        if (from != to && bucket(from).remove(msg)) {
+            bucket(to).add(msg);
+            return true;
+        }
+        return false;
+    }
+
+    public void clear() {
+        for (OrderedMessages bucket : buckets.values()) {
+            bucket.clear();
+        }
+        unknown.clear();
+    }
+
+    public int size(MessageStatus status) {
+        return buckets.get(status).size();
+    }
+
+    /**
+     * @return A read-only live view of the messages with this status, in the order they
+     *         were added. Iterating the view is O(n); {@code get(i)} is O(1) unless
+     *         messages have left the status since the last {@link #freeze}.
+     */
+    public List<Message> view(MessageStatus status) {
+        return buckets.get(status).view();
+    }
+
+    /**
+     * @return An immutable list of the messages with this status as they are now. Costs
+     *         O(1) unless messages have left the status since the last call.
+     */
+    public List<Message> freeze(MessageStatus status) {
+        return buckets.get(status).freeze();
+    }
+
+    private OrderedMessages bucket(MessageStatus status) {
+        return status == null ? unknown : buckets.get(status);
+    }
+}
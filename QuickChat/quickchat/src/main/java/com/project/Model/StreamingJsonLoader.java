@@ -0,0 +1,91 @@
+package com.project.Model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reads a messages.json array one element at a time with Jackson's token level parser.
+ * Each message is bound and handed to the sink before the next one is read, so memory
+ * use does not grow with the size of the file.
+ */
+public class StreamingJsonLoader {
+
+    /**
+     * Receives periodic progress updates while a file is being loaded.
+     */
+    public interface ProgressListener {
+        void onProgress(long messagesRead, long bytesRead, long totalBytes, double messagesPerSecond);
+    }
+
+    /** Files smaller than this load quietly with {@link #consoleProgress()}. */
+    private static final long LARGE_FILE_BYTES = 8L * 1024 * 1024;
+    private static final long REPORT_INTERVAL_NANOS = 1_000_000_000L;
+    private static final int CHECK_EVERY = 4096;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private StreamingJsonLoader() {}
+
+    /**
+     * Prints progress to the console, but only for files large enough for it to matter.
+     */
+    public static ProgressListener consoleProgress() {
+        return (messagesRead, bytesRead, totalBytes, messagesPerSecond) -> {
+            if (totalBytes >= LARGE_FILE_BYTES) {
+                System.out.printf("Loaded %,d messages (%d%%) at %,.0f messages/sec%n",
+                        messagesRead, totalBytes == 0 ? 100 : bytesRead * 100 / totalBytes, messagesPerSecond);
+            }
+        };
+    }
+
+    /**
+     * Streams every message in the JSON array into the sink.
+     * @param progress Called roughly once a second and once at the end; may be null.
+     * @return The number of messages read.
+     */
+    public static long load(File file, Consumer<Message> sink, ProgressListener progress) throws IOException {
+        long totalBytes = file.length();
+        long started = System.nanoTime();
+        long lastReport = started;
+        long count = 0;
+
+        try (JsonParser parser = MAPPER.getFactory().createParser(file)) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                return 0; // empty file
+            }
+            if (token != JsonToken.START_ARRAY) {
+                throw new IOException(file.getName() + " does not contain a JSON array of messages");
+            }
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                sink.accept(MAPPER.readValue(parser, Message.class));
+                count++;
+
+                if (progress != null && count % CHECK_EVERY == 0) {
+                    long now = System.nanoTime();
+                    if (now - lastReport >= REPORT_INTERVAL_NANOS) {
+                        lastReport = now;
+                        progress.onProgress(count, parser.currentLocation().getByteOffset(), totalBytes, rate(count, started, now));
+                    }
+                }
+            }
+            if (token != JsonToken.END_ARRAY) {
+                throw new IOException("Unexpected " + token + " in " + file.getName() + " after " + count + " messages");
+            }
+        }
+        if (progress != null) {
+            progress.onProgress(count, totalBytes, totalBytes, rate(count, started, System.nanoTime()));
+        }
+        return count;
+    }
+
+    private static double rate(long count, long started, long now) {
+        long elapsed = Math.max(1, now - started);
+        return count * 1_000_000_000.0 / elapsed;
+    }
+}
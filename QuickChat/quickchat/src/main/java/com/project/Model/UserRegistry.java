@@ -0,0 +1,386 @@
+package com.project.Model;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Registered users, indexed by username and by phone number so registering, logging in
+ * and finding a recipient take the same time however many accounts there are. Phone
+ * numbers are indexed by {@link RecipientIndex#canonicalKey}, so "+27831234567" and
+ * "0831234567" are the same number.
+ *
+ * Passwords are only kept as {@link PasswordHasher} hashes. Hashing happens outside the
+ * lock, so a slow hash does not hold up other registrations or logins.
+ *
+ * When given a file, every registration is appended to it as one JSON line and forced
+ * to disk before {@link #register} returns, and {@link #load} reads the users back at
+ * startup. Without a file the registry lives in memory only.
+ *
+ * The registry is also a read-only {@link List} of users in registration order, for code
+ * that lists them. Lookups share a read lock; registrations take the write lock.
+ */
+public class UserRegistry extends AbstractList<User> implements Closeable {
+
+    /**
+     * The outcome of a registration.
+     */
+    public enum Result {
+        REGISTERED,
+        USERNAME_TAKEN,
+        PHONE_NUMBER_TAKEN
+    }
+
+    private static final byte NEWLINE = '\n';
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final File file;
+    private final PasswordHasher hasher;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<User> users = new ArrayList<>();
+    private final Map<String, User> byUsername = new HashMap<>();
+    private final LongIndex<User> byPhoneNumber = new LongIndex<>();
+    private FileChannel channel;
+
+    /**
+     * A registry kept in memory only.
+     */
+    public UserRegistry() {
+        this(null);
+    }
+
+    /**
+     * @param file The append-only user file, or null to keep users in memory only.
+     */
+    public UserRegistry(File file) {
+        this(file, new PasswordHasher());
+    }
+
+    public UserRegistry(File file, PasswordHasher hasher) {
+        this.file = file;
+        this.hasher = hasher;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Reads the users in the file, if it exists, in addition to any already registered.
+     * Unreadable lines, such as a torn final line left by a crash, are skipped. Passwords
+     * saved in plaintext by older versions are hashed and the file is rewritten without
+     * them.
+     */
+    public void load() throws IOException {
+        if (file == null || !file.exists()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            List<User> loaded = read();
+            boolean plaintext = loaded.stream().anyMatch(u -> !PasswordHasher.isHash(u.getPassword()));
+            if (plaintext) {
+                loaded = loaded.parallelStream().map(this::migratePassword).toList();
+            }
+            for (User user : loaded) {
+                if (check(user) == Result.REGISTERED) {
+                    index(user);
+                } else {
+                    System.err.println("Skipping duplicate user " + user.getUsername() + " in " + file.getName());
+                }
+            }
+            if (plaintext) {
+                rewrite();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<User> read() throws IOException {
+        List<User> loaded = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    loaded.add(fromJson(mapper.readTree(line)));
+                } catch (IOException | IllegalArgumentException e) {
+                    System.err.println("Skipping unreadable user on line " + lineNumber + " of " + file.getName() + ": " + e.getMessage());
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Replaces the file with the registered users, through a temporary file so a crash
+     * leaves either the old file or the new one.
+     */
+    private void rewrite() throws IOException {
+        close();
+        Path target = file.toPath();
+        Path temp = target.resolveSibling(file.getName() + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (User user : users) {
+                out.write(mapper.writeValueAsString(toJson(user)));
+                out.write(NEWLINE);
+            }
+        }
+        try (FileChannel written = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            written.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Adds the user unless the username or phone number is already registered. The password
+     * is always hashed, even one that looks like a hash already, so the registered user is
+     * a copy of the one given. The user is on disk before this returns.
+     * @throws IOException If the user could not be written; the user is then not registered.
+     */
+    public Result register(User user) throws IOException {
+        lock.readLock().lock();
+        try {
+            Result taken = check(user);
+            if (taken != Result.REGISTERED) {
+                return taken; // don't pay for a hash that would be thrown away
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        user = withHashedPassword(user);
+        lock.writeLock().lock();
+        try {
+            Result result = check(user);
+            if (result == Result.REGISTERED) {
+                if (file != null) {
+                    append(user);
+                }
+                index(user);
+            }
+            return result;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return The user, or null if nobody has that username.
+     */
+    public User findByUsername(String username) {
+        lock.readLock().lock();
+        try {
+            return byUsername.get(username);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return The user registered with that number in either format, or null.
+     */
+    public User findByPhoneNumber(String phoneNumber) {
+        long key = RecipientIndex.canonicalKey(phoneNumber);
+        if (key < 0) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            return byPhoneNumber.get(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Checks the password against its hash, which is slow by design; use a
+     * {@link SessionManager} to avoid doing it for every request.
+     * @return The user if the username exists and the password matches, otherwise null.
+     */
+    public User login(String username, String password) {
+        User user = findByUsername(username);
+        return user != null && hasher.verify(password, user.getPassword()) ? user : null;
+    }
+
+    /**
+     * Registers the user through {@link #register}.
+     * @return False if the username or phone number is taken.
+     */
+    @Override
+    public boolean add(User user) {
+        try {
+            return register(user) == Result.REGISTERED;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public User get(int index) {
+        lock.readLock().lock();
+        try {
+            return users.get(index);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return users.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removes every user, from the file as well.
+     */
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            users.clear();
+            byUsername.clear();
+            byPhoneNumber.clear();
+            if (file != null && file.exists()) {
+                channel().truncate(0);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Result check(User user) {
+        if (byUsername.containsKey(user.getUsername())) {
+            return Result.USERNAME_TAKEN;
+        }
+        long key = RecipientIndex.canonicalKey(user.getPhoneNumber());
+        if (key >= 0 && byPhoneNumber.containsKey(key)) {
+            return Result.PHONE_NUMBER_TAKEN;
+        }
+        return Result.REGISTERED;
+    }
+
+    /**
+     * For users read from the file, whose passwords older versions saved in plaintext.
+     */
+    private User migratePassword(User user) {
+        return PasswordHasher.isHash(user.getPassword()) ? user : withHashedPassword(user);
+    }
+
+    private User withHashedPassword(User user) {
+        return new User(user.getUsername(), user.getFirstname(), user.getLastname(),
+                hasher.hash(user.getPassword()), user.getPhoneNumber());
+    }
+
+    private void index(User user) {
+        users.add(user);
+        byUsername.put(user.getUsername(), user);
+        long key = RecipientIndex.canonicalKey(user.getPhoneNumber());
+        if (key >= 0) {
+            byPhoneNumber.put(key, user);
+        }
+    }
+
+    private void append(User user) throws IOException {
+        byte[] json = mapper.writeValueAsBytes(toJson(user));
+        ByteBuffer buffer = ByteBuffer.allocate(json.length + 1).put(json).put(NEWLINE).flip();
+        FileChannel out = channel();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        out.force(false);
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null || !channel.isOpen()) {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.READ);
+            channel.position(channel.size());
+            endTornLine(channel);
+        }
+        return channel;
+    }
+
+    /**
+     * Ends a final line left without its newline by a crash, so the next user starts on
+     * a line of its own instead of being glued to the broken one.
+     */
+    private static void endTornLine(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size == 0) {
+            return;
+        }
+        ByteBuffer last = ByteBuffer.allocate(1);
+        channel.read(last, size - 1);
+        if (last.get(0) != NEWLINE) {
+            channel.write(ByteBuffer.wrap(new byte[] {NEWLINE}));
+        }
+    }
+
+    private ObjectNode toJson(User user) {
+        ObjectNode node = mapper.createObjectNode();
+        node.put("username", user.getUsername());
+        node.put("firstname", user.getFirstname());
+        node.put("lastname", user.getLastname());
+        node.put("password", user.getPassword());
+        node.put("phoneNumber", user.getPhoneNumber());
+        return node;
+    }
+
+    private static User fromJson(JsonNode node) {
+        if (!node.hasNonNull("username") || !node.hasNonNull("password")) {
+            throw new IllegalArgumentException("Missing username or password");
+        }
+        return new User(node.get("username").asText(), text(node, "firstname"), text(node, "lastname"),
+                node.get("password").asText(), text(node, "phoneNumber"));
+    }
+
+    private static String text(JsonNode node, String field) {
+        return node.hasNonNull(field) ? node.get(field).asText() : null;
+    }
+}
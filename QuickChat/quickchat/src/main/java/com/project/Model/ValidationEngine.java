@@ -0,0 +1,218 @@
+package com.project.Model;
+
+import java.util.stream.IntStream;
+
+/**
+ * Hand written checks for user input. Each rule reads its input once, left to right,
+ * without regular expressions or copies, and says what is wrong rather than just
+ * whether it is valid. The rules accept exactly what the original regular expressions
+ * in {@code Validation} and {@link Message#checkRecipientCell()} accepted.
+ *
+ * {@link #validate(Rule, String[])} checks many candidates at once, in parallel when
+ * there are enough of them to be worth it.
+ */
+public final class ValidationEngine {
+
+    /** Candidates below this count are checked on the calling thread. */
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    /**
+     * The outcome of a check: {@link #OK}, or the first problem found.
+     */
+    public enum Code {
+        OK("Valid"),
+        MISSING("No value given"),
+        USERNAME_TOO_LONG("Username is longer than five characters"),
+        USERNAME_MISSING_UNDERSCORE("Username does not contain an underscore"),
+        PASSWORD_TOO_SHORT("Password is shorter than eight characters"),
+        PASSWORD_MISSING_UPPERCASE("Password does not contain a capital letter"),
+        PASSWORD_MISSING_DIGIT("Password does not contain a number"),
+        PASSWORD_MISSING_SPECIAL("Password does not contain a special character"),
+        PASSWORD_LINE_BREAK("Password contains a line break"),
+        PHONE_BAD_PREFIX("Cell phone number does not start with +27 or 06, 07 or 08"),
+        PHONE_BAD_LENGTH("Cell phone number has the wrong number of digits"),
+        PHONE_NOT_DIGIT("Cell phone number contains something other than digits");
+
+        private final String description;
+
+        Code(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public boolean isValid() {
+            return this == OK;
+        }
+    }
+
+    /**
+     * What can be validated.
+     */
+    public enum Rule {
+        /** Contains an underscore and is at most five characters long. */
+        USERNAME {
+            @Override
+            public Code check(String value) {
+                return userName(value);
+            }
+        },
+        /** At least eight characters with a capital letter, a digit and a special character. */
+        PASSWORD {
+            @Override
+            public Code check(String value) {
+                return password(value);
+            }
+        },
+        /** A South African cell number, ignoring surrounding whitespace. */
+        PHONE_NUMBER {
+            @Override
+            public Code check(String value) {
+                return phoneNumber(value);
+            }
+        },
+        /** A South African cell number exactly as given. */
+        CELL_NUMBER {
+            @Override
+            public Code check(String value) {
+                return cellNumber(value);
+            }
+        };
+
+        public abstract Code check(String value);
+    }
+
+    private ValidationEngine() {}
+
+    public static Code userName(String username) {
+        if (username == null) {
+            return Code.MISSING;
+        }
+        if (username.length() > 5) {
+            return Code.USERNAME_TOO_LONG;
+        }
+        return username.indexOf('_') >= 0 ? Code.OK : Code.USERNAME_MISSING_UNDERSCORE;
+    }
+
+    public static Code password(String password) {
+        if (password == null) {
+            return Code.MISSING;
+        }
+        if (password.length() < 8) {
+            return Code.PASSWORD_TOO_SHORT;
+        }
+        boolean upper = false;
+        boolean digit = false;
+        boolean special = false;
+        boolean lineBreak = false;
+        for (int i = 0; i < password.length(); ) {
+            int c = password.codePointAt(i);
+            i += Character.charCount(c);
+            upper |= Character.toLowerCase(c) != c;
+            digit |= c >= '0' && c <= '9';
+            special |= isSpecial(c);
+            lineBreak |= isLineBreak(c);
+        }
+        if (!upper) {
+            return Code.PASSWORD_MISSING_UPPERCASE;
+        }
+        if (!digit) {
+            return Code.PASSWORD_MISSING_DIGIT;
+        }
+        if (lineBreak) {
+            return Code.PASSWORD_LINE_BREAK; // the old ".*" patterns never matched across one
+        }
+        return special ? Code.OK : Code.PASSWORD_MISSING_SPECIAL;
+    }
+
+    /**
+     * Checks a number typed by a user, so leading and trailing whitespace is ignored.
+     */
+    public static Code phoneNumber(String phoneNumber) {
+        if (phoneNumber == null) {
+            return Code.MISSING;
+        }
+        int start = 0;
+        int end = phoneNumber.length();
+        while (start < end && phoneNumber.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && phoneNumber.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return cellNumber(phoneNumber, start, end);
+    }
+
+    /**
+     * Checks a stored number: "+27" and nine digits, or "0", a 6, 7 or 8 and eight digits.
+     */
+    public static Code cellNumber(String cellNumber) {
+        if (cellNumber == null) {
+            return Code.MISSING;
+        }
+        return cellNumber(cellNumber, 0, cellNumber.length());
+    }
+
+    /**
+     * Checks every candidate against the rule.
+     * @return The outcome for each candidate, in the same order.
+     */
+    public static Code[] validate(Rule rule, String[] candidates) {
+        Code[] results = new Code[candidates.length];
+        IntStream indexes = IntStream.range(0, candidates.length);
+        if (candidates.length >= PARALLEL_THRESHOLD) {
+            indexes = indexes.parallel();
+        }
+        indexes.forEach(i -> results[i] = rule.check(candidates[i]));
+        return results;
+    }
+
+    private static Code cellNumber(String s, int start, int end) {
+        int length = end - start;
+        int digitsFrom;
+        if (length > 0 && s.charAt(start) == '+') {
+            if (length < 3 || s.charAt(start + 1) != '2' || s.charAt(start + 2) != '7') {
+                return Code.PHONE_BAD_PREFIX;
+            }
+            if (length != 12) {
+                return Code.PHONE_BAD_LENGTH;
+            }
+            digitsFrom = start + 3;
+        } else if (length > 0 && s.charAt(start) == '0') {
+            if (length < 2 || s.charAt(start + 1) < '6' || s.charAt(start + 1) > '8') {
+                return Code.PHONE_BAD_PREFIX;
+            }
+            if (length != 10) {
+                return Code.PHONE_BAD_LENGTH;
+            }
+            digitsFrom = start + 2;
+        } else {
+            return Code.PHONE_BAD_PREFIX;
+        }
+        for (int i = digitsFrom; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return Code.PHONE_NOT_DIGIT;
+            }
+        }
+        return Code.OK;
+    }
+
+    private static boolean isSpecial(int c) {
+        switch (c) {
+            case '!': case '@': case '#': case '$': case '%': case '^': case '&': case '*':
+            case '(': case ')': case '_': case '+': case '-': case '=': case '[': case ']':
+            case '{': case '}': case ';': case '\'': case ':': case '"': case '\\': case '|':
+            case ',': case '.': case '<': case '>': case '/': case '?':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isLineBreak(int c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+}
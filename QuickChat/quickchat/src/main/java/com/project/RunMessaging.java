@@ -1,15 +1,37 @@
 package com.project;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.InputMismatchException;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 import com.project.Model.Message;
 import com.project.Model.User;
+import com.project.Model.UserRegistry;
 
 public class RunMessaging {
-    public static void startMessaging(User loggedUser, List<User> users, List<Message> messages, Scanner sc) {
+    /** A listing that writes itself to a stream. */
+    private interface Listing {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Streams a listing to the console as it is produced, then ends the line the way
+     * println would.
+     */
+    private static void print(Listing listing) {
+        try {
+            listing.writeTo(System.out);
+        } catch (IOException e) {
+            System.err.println("Error writing to the console: " + e.getMessage());
+        }
+        System.out.println();
+    }
+
+    public static void startMessaging(User loggedUser, UserRegistry users, Scanner sc) {
 
         boolean messagingMenu = true;
         while (messagingMenu) {
@@ -36,13 +58,7 @@ public class RunMessaging {
                     System.out.print("Enter recipient username: ");
                     String recipientUsername = sc.nextLine();
 
-                    User recipientUser = null;
-                    for (User u : users) {
-                        if (u.getUsername().equals(recipientUsername)) {
-                            recipientUser = u;
-                            break;
-                        }
-                    }
+                    User recipientUser = users.findByUsername(recipientUsername);
 
                     if (recipientUser != null) {
                         System.out.print("Enter message content: ");
@@ -62,9 +78,19 @@ public class RunMessaging {
                         String statusMessage = msg.sentMessage(decision);
                         System.out.println(statusMessage);
 
-                        Message.storeMessage(List.of(msg));
+                        try {
+                            Message.storeMessageAsync(List.of(msg)).join();
+                        } catch (CompletionException e) {
+                            System.out.println("Error: Message could not be saved, so it was not delivered.");
+                            break;
+                        }
 
-                        String hash = msg.createMessageHash();
+                        String delivery = Message.deliverMessage(recipientUser, msg);
+                        if (delivery != null) {
+                            System.out.println(delivery);
+                        }
+
+                        String hash = msg.getHash();
                         if (hash != null) {
                             System.out.println("Message hash: " + hash);
                         } else {
@@ -77,12 +103,12 @@ public class RunMessaging {
                     break;
 
                 case 2: // View Your Received Messages
-                    System.out.println("\n--- Your Received Messages (In-memory Filtered) ---\n");
-                    System.out.println(Message.printMessages(messages));
+                    System.out.println("\n--- Your Received Messages ---\n");
+                    print(out -> Message.printMessages(Message.getReceivedMessages(loggedUser), out));
                     break;
 
-                case 3: // View Total Messages Created/Processed
-                    System.out.println("Total messages (including sent, stored, disregarded, loaded from file): " + Message.returnTotalMessages());
+                case 3: // View Stats: totals, statuses, lengths and top talkers
+                    System.out.println(Message.getStats().report());
                     break;
 
                 case 4: // Message Centre - New sub-menu for advanced operations
@@ -95,7 +121,8 @@ public class RunMessaging {
                         System.out.println("4 - Search Messages by Recipient");
                         System.out.println("5 - Delete Message by Hash");
                         System.out.println("6 - Generate Sent Messages Report");
-                        System.out.println("7 - Back to Main Messaging Menu");
+                        System.out.println("7 - Search Messages by Keyword");
+                        System.out.println("8 - Back to Main Messaging Menu");
                         System.out.print("Choose an option: ");
 
                         int mcChoice = -1;
@@ -110,7 +137,7 @@ public class RunMessaging {
 
                         switch (mcChoice) {
                             case 1:
-                                System.out.println(Message.displaySentMessagesDetails());
+                                print(Message::displaySentMessagesDetails);
                                 break;
                             case 2:
                                 System.out.println("Longest Message Content: " + Message.getLongestMessageContent());
@@ -123,7 +150,7 @@ public class RunMessaging {
                             case 4:
                                 System.out.print("Enter Recipient Phone Number to search (e.g., +2783...): ");
                                 String searchRecipient = sc.nextLine();
-                                System.out.println(Message.searchMessagesByRecipient(searchRecipient));
+                                print(out -> Message.searchMessagesByRecipient(searchRecipient, out));
                                 break;
                             case 5:
                                 System.out.print("Enter Message Hash to delete: ");
@@ -131,14 +158,19 @@ public class RunMessaging {
                                 System.out.println(Message.deleteMessageByHash(deleteHash));
                                 break;
                             case 6:
-                                System.out.println(Message.generateSentMessagesReport());
+                                print(Message::generateSentMessagesReport);
                                 break;
                             case 7:
+                                System.out.print("Enter keywords to search (e.g., cake OR late*): ");
+                                String keywords = sc.nextLine();
+                                System.out.println(Message.searchMessagesByKeyword(keywords));
+                                break;
+                            case 8:
                                 System.out.println("Returning to main messaging menu...");
                                 messageCentreMenu = false; // Exit Message Centre sub-menu
                                 break;
                             default:
-                                System.out.println("Invalid choice. Please select an option between 1 and 7.");
+                                System.out.println("Invalid choice. Please select an option between 1 and 8.");
                         }
                     }
                     break; // End of Message Centre case
@@ -4,10 +4,11 @@
 
 package com.project;
 
+import java.io.IOException;
 import java.util.*;
 
-import com.project.Model.Message;
 import com.project.Model.User;
+import com.project.Model.UserRegistry;
 
 /**
  *
@@ -15,19 +16,11 @@ import com.project.Model.User;
  */
 
 public class UserRegisterAndLogin {
-    static List<User> users = new ArrayList<>();
-    static List<Message> messages = new ArrayList<>();
+    static UserRegistry users = new UserRegistry();
 
     static User loggedUser = null;
     public static String registerUser(String username, String firstname, String lastname, String password, String phonenumber) {
-        boolean isRegistered = false;
         String result = "";
-        for (User user : users) {
-            if (user.getUsername().equals(username)) {
-                isRegistered = true;
-                break;
-            }
-        }
 
         if (Validation.checkUserName(username) == false) {
             result += "\nUsername is not correctly formatted, please ensure that your username contains an underscore and is no more than five characters in lenght";
@@ -36,27 +29,29 @@ public class UserRegisterAndLogin {
         } else if(Validation.checkPhoneNumber(phonenumber) == false) {
             result +=  "\nCell phone number is incorrectly formatted or does not contain international code";
         } else{
-            if (isRegistered == false) {
-                User newUser = new User(username, firstname, lastname, password, phonenumber);
-                users.add(newUser);
-
-                result =  "User successfully registered.";
-            } else if(isRegistered == true) {
-                result =  "Username already exists. Please try again.";
+            User newUser = new User(username, firstname, lastname, password, phonenumber);
+            try {
+                UserRegistry.Result registered = users.register(newUser);
+                if (registered == UserRegistry.Result.REGISTERED) {
+                    result =  "User successfully registered.";
+                } else if (registered == UserRegistry.Result.USERNAME_TAKEN) {
+                    result =  "Username already exists. Please try again.";
+                } else {
+                    result =  "Cell phone number is already registered. Please try again.";
+                }
+            } catch (IOException e) {
+                result =  "Could not save the new user: " + e.getMessage();
             }
         }
         return result;
     }
 
     public static boolean loginUser(String username, String password) {
-        boolean result = false;
-        for (User user : users) {
-            if (user.getUsername().equals(username) && user.getPassword().equals(password)) {
-                loggedUser = user;
-                result = true;
-            }
+        User user = users.login(username, password);
+        if (user != null) {
+            loggedUser = user;
         }
-        return result;
+        return user != null;
     }
 
     private static String requestUsernameWithRetry(String expectation, Scanner input) {
@@ -152,7 +147,7 @@ public class UserRegisterAndLogin {
                     boolean isLoggedIn = loginUser(loginUsername, loginPassword);
                     if (isLoggedIn) {
                         System.out.println("Welcome QuickChat");
-                        RunMessaging.startMessaging(loggedUser, users, messages, sc);
+                        RunMessaging.startMessaging(loggedUser, users, sc);
                     } else {
                         System.out.println("User name or password incorrect, please try again.");
                     }
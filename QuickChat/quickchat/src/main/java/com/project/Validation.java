@@ -4,34 +4,26 @@
  */
 package com.project;
 
+import com.project.Model.ValidationEngine;
+
 /**
  *
  * @author RC_Student_lab - Matsobane Mahlafonya - ST10470123
  */
 public class Validation {
-        public static boolean checkUserName(String username) {
-        boolean hasSpecial = username.contains("_");
-        boolean hasValidLength = username.length() <= 5;
+    // The checks themselves live in ValidationEngine, which also says why a value is invalid.
 
-        return hasValidLength && hasSpecial;
+    public static boolean checkUserName(String username) {
+        return ValidationEngine.userName(username).isValid();
     }
 
     public static boolean checkPhoneNumber(String phoneNumber) {
-        // Check if the phone number is in the format +27XXXXXXXXX or 0XXXXXXXXX
-        //trim number to remove any leading or trailing spaces
-        phoneNumber = phoneNumber.trim();
-        return phoneNumber.matches("^\\+27\\d{9}$") || phoneNumber.matches("^0[6-8]\\d{8}$");
+        // Check if the phone number is in the format +27XXXXXXXXX or 0XXXXXXXXX, ignoring leading or trailing spaces
+        return ValidationEngine.phoneNumber(phoneNumber).isValid();
     }
 
     public static boolean checkPasswordComplexity(String password) {
-        if (password.length() < 8) return false;
-
-        boolean hasUppercase = !password.equals(password.toLowerCase());
-        boolean hasDigit = password.matches(".*\\d.*"); // used chatgpt to generate regex
-        boolean hasSpecial = password.matches(".*[!@#$%^&*()_+\\-=\\[\\]{};':\"\\\\|,.<>/?].*"); // used chatgpt to generate regex
-
-        System.out.println(hasUppercase+" "+hasDigit +" "+ hasSpecial);
-
-        return hasUppercase && hasDigit && hasSpecial;
+        // At least 8 characters with a capital letter, a number and a special character
+        return ValidationEngine.password(password).isValid();
     }
 }
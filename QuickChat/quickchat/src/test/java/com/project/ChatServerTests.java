@@ -0,0 +1,131 @@
+package com.project;
+
+import com.project.Model.DurabilityPolicy;
+import com.project.Model.GroupCommitWriter;
+import com.project.Model.Message;
+import com.project.Model.MessageLog;
+import com.project.Model.PasswordHasher;
+import com.project.Model.UserRegistry;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * JUnit 5 tests for the network server mode, against a message log in a temporary directory.
+ */
+public class ChatServerTests {
+
+    @TempDir
+    Path tempDir;
+
+    private ChatServer server;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        MessageLog log = new MessageLog(tempDir.resolve("messages.log").toFile(),
+                tempDir.resolve("messages.snapshot").toFile(), null);
+        Message.useStorage(GroupCommitWriter.start(log, DurabilityPolicy.everyMillis(5)));
+        Message.loadMessagesFromJson();
+        server = new ChatServer(0, new UserRegistry(null, new PasswordHasher(1000)));
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() throws IOException {
+        server.close();
+        MessageStoreReset.reset();
+    }
+
+    private LoadClient.Connection connect() throws IOException {
+        return new LoadClient.Connection("localhost", server.getPort());
+    }
+
+    @Test
+    @DisplayName("Test: A session can register, log in, send, search and delete over the socket")
+    void testSessionRoundTrip() throws IOException {
+        try (LoadClient.Connection alice = connect(); LoadClient.Connection bob = connect()) {
+            IOException notLoggedIn = assertThrows(IOException.class, () -> alice.call("SEARCHID 1"));
+            assertTrue(notLoggedIn.getMessage().contains("Please LOGIN first."));
+
+            assertEquals(List.of("User successfully registered."),
+                    alice.call("REGISTER al_ce Alice Smith Passw0rd! +27831234567"));
+            bob.call("REGISTER bo_b Bob Jones Passw0rd! +27837654321");
+            IOException duplicate = assertThrows(IOException.class,
+                    () -> bob.call("REGISTER al_ce Other Person Passw0rd! +27830000000"));
+            assertTrue(duplicate.getMessage().contains("Username already exists."));
+            assertThrows(IOException.class, () -> alice.call("LOGIN al_ce wrong"));
+            alice.call("LOGIN al_ce Passw0rd!");
+
+            List<String> sent = alice.call("SEND bo_b send Lunch at one tomorrow?");
+            String id = sent.get(sent.size() - 2).substring("Message ID: ".length());
+            String hash = sent.get(sent.size() - 1).substring("Message hash: ".length());
+            assertNotNull(Message.findMessageById(id), "The message should be in the shared store.");
+
+            assertTrue(String.join("\n", alice.call("SEARCHID " + id)).contains("Lunch at one tomorrow?"));
+            assertTrue(String.join("\n", alice.call("SEARCHRECIP +27837654321")).contains("Lunch at one tomorrow?"));
+            assertTrue(String.join("\n", alice.call("SEARCHTEXT lunch")).contains("Lunch at one tomorrow?"));
+
+            alice.call("DELETE " + hash);
+            assertNull(Message.findMessageById(id));
+            assertEquals(List.of("Goodbye."), alice.call("QUIT"));
+        }
+    }
+
+    @Test
+    @DisplayName("Test: A subscribed session has new messages pushed to it")
+    void testSubscribedSessionGetsPushes() throws IOException {
+        try (LoadClient.Connection alice = connect(); LoadClient.Connection bob = connect()) {
+            alice.call("REGISTER al_ce Alice Smith Passw0rd! +27831234567");
+            bob.call("REGISTER bo_b Bob Jones Passw0rd! 0837654321");
+            alice.call("LOGIN al_ce Passw0rd!");
+            bob.call("LOGIN bo_b Passw0rd!");
+            bob.call("SUBSCRIBE");
+
+            alice.call("SEND bo_b store Just a draft");
+            alice.call("SEND bo_b send Are you there?");
+            List<String> pushed = bob.readPush();
+            assertEquals(1, pushed.size());
+            assertTrue(pushed.get(0).contains("Are you there?"), pushed.get(0));
+            assertTrue(String.join("\n", bob.call("INBOX")).contains("Are you there?"));
+        }
+    }
+
+    @Test
+    @DisplayName("Test: A reconnecting client resumes its session with the token from LOGIN")
+    void testResumeSession() throws IOException {
+        String token;
+        try (LoadClient.Connection alice = connect()) {
+            alice.call("REGISTER al_ce Alice Smith Passw0rd! +27831234567");
+            List<String> welcome = alice.call("LOGIN al_ce Passw0rd!");
+            token = welcome.get(1).substring("Session token: ".length());
+            alice.call("QUIT");
+        }
+        try (LoadClient.Connection again = connect()) {
+            assertThrows(IOException.class, () -> again.call("RESUME wrong"));
+            assertEquals(List.of("Welcome back al_ce"), again.call("RESUME " + token));
+            again.call("SEARCHTEXT anything");
+            again.call("LOGOUT");
+            assertThrows(IOException.class, () -> again.call("SEARCHTEXT anything"));
+            assertThrows(IOException.class, () -> again.call("RESUME " + token), "A logged out session should be gone.");
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Hundreds of simultaneous sessions are all served")
+    void testManyConcurrentSessions() throws Exception {
+        int sessions = 300;
+        int messagesPerSession = 3;
+        int before = Message.returnTotalMessages();
+
+        LoadClient.Result result = LoadClient.run("localhost", server.getPort(), sessions, messagesPerSession, 0);
+
+        assertEquals(0, result.failedSessions(), result::toString);
+        assertEquals(sessions, result.peakConcurrentSessions(), "Every session should be open at the same time.");
+        assertEquals(before + sessions * messagesPerSession, Message.returnTotalMessages());
+    }
+}
@@ -0,0 +1,249 @@
+package com.project;
+
+import com.project.Model.Mailbox;
+import com.project.Model.Mailboxes;
+import com.project.Model.Message;
+import com.project.Model.MessageFeed;
+import com.project.Model.MessageStatus;
+import com.project.Model.User;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JUnit 5 tests for delivering messages to recipients: inbox mailboxes and pushed feeds.
+ */
+public class MailboxTests {
+
+    private static Message message(int sender, int i) {
+        return new Message("+2783000000" + sender, "+27831000000", sender + ":" + i, "Sent");
+    }
+
+    @Test
+    @DisplayName("Test: Concurrent senders deliver every message exactly once and in each sender's order")
+    void testConcurrentSendersAndOneReader() throws Exception {
+        int senders = 8;
+        int perSender = 5000;
+        Mailbox mailbox = new Mailbox(64);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(senders);
+        List<Future<?>> sending = new ArrayList<>();
+        for (int s = 0; s < senders; s++) {
+            int sender = s;
+            sending.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < perSender; i++) {
+                    assertTrue(mailbox.offer(message(sender, i), 10, TimeUnit.SECONDS), "The reader should keep making room.");
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        List<Message> received = new ArrayList<>();
+        while (received.size() < senders * perSender) {
+            if (mailbox.drainTo(received) == 0) {
+                Thread.onSpinWait();
+            }
+        }
+        for (Future<?> f : sending) {
+            f.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        int[] next = new int[senders];
+        for (Message m : received) {
+            String[] parts = m.getContent().split(":");
+            int sender = Integer.parseInt(parts[0]);
+            assertEquals(next[sender]++, Integer.parseInt(parts[1]), "Messages from one sender should arrive in order.");
+        }
+        for (int count : next) {
+            assertEquals(perSender, count);
+        }
+        assertEquals(0, mailbox.size());
+    }
+
+    @Test
+    @DisplayName("Test: A full mailbox refuses senders until the recipient reads")
+    void testFullMailboxPushesBack() {
+        Mailbox mailbox = new Mailbox(4);
+        assertEquals(4, mailbox.capacity());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(mailbox.offer(message(0, i)));
+        }
+        assertFalse(mailbox.offer(message(0, 4)));
+        assertFalse(mailbox.offer(message(0, 4), 5, TimeUnit.MILLISECONDS));
+
+        List<Message> read = new ArrayList<>();
+        assertEquals(4, mailbox.drainTo(read));
+        assertTrue(mailbox.offer(message(0, 4)));
+        assertEquals(1, mailbox.size());
+    }
+
+    @Test
+    @DisplayName("Test: Removing a waiting message takes it out of the mailbox and the next drain frees its slot")
+    void testRemoveWaitingMessage() {
+        Mailbox mailbox = new Mailbox(4);
+        Message first = message(0, 0);
+        Message second = message(0, 1);
+        Message third = message(0, 2);
+        assertTrue(mailbox.offer(first));
+        assertTrue(mailbox.offer(second));
+        assertTrue(mailbox.offer(third));
+
+        assertTrue(mailbox.remove(second));
+        assertFalse(mailbox.remove(second), "A message can only be removed once.");
+        assertFalse(mailbox.remove(message(0, 3)), "Messages never offered are not found.");
+
+        List<Message> read = new ArrayList<>();
+        assertEquals(2, mailbox.drainTo(read));
+        assertEquals(List.of(first, third), read);
+        assertEquals(0, mailbox.size());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(mailbox.offer(message(1, i)), "Removed slots should be free again after the drain.");
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Inboxes keep read messages and only ever hold the recipient's own")
+    void testInboxesPerRecipient() {
+        Mailboxes mailboxes = new Mailboxes(2, 0);
+        User alice = new User("al_ce", "Alice", "Smith", "Passw0rd!", "+27831234567");
+        User bob = new User("bo_b", "Bob", "Jones", "Passw0rd!", "+27837654321");
+        Message first = message(1, 1);
+        Message second = message(1, 2);
+
+        assertTrue(mailboxes.deliver(alice, first));
+        assertTrue(mailboxes.deliver(alice, second));
+        assertFalse(mailboxes.deliver(alice, message(1, 3)), "A full inbox should refuse the sender.");
+        assertEquals(2, mailboxes.unreadCount(alice));
+        assertEquals(List.of(), mailboxes.receivedBy(bob));
+
+        assertEquals(List.of(first, second), mailboxes.receivedBy(alice));
+        assertEquals(0, mailboxes.unreadCount(alice));
+        Message third = message(1, 3);
+        assertTrue(mailboxes.deliver(alice, third));
+        assertEquals(List.of(first, second, third), mailboxes.receivedBy(alice), "Read messages should stay in the inbox.");
+    }
+
+    @Test
+    @DisplayName("Test: Inboxes follow the phone number, drop deleted messages and can be refilled")
+    void testInboxesByPhoneNumber() {
+        Mailboxes mailboxes = new Mailboxes(4, 0);
+        User alice = new User("al_ce", "Alice", "Smith", "Passw0rd!", "+27831234567");
+        User aliceAgain = new User("al_ce", "Alice", "Smith", "Passw0rd!", "0831234567");
+        Message first = new Message("+27830000001", "+27831234567", "First", "Sent");
+        Message second = new Message("+27830000001", "+27831234567", "Second", "Sent");
+        Message third = new Message("+27830000001", "0831234567", "Third", "Sent");
+
+        assertTrue(mailboxes.deliver(alice, first));
+        assertTrue(mailboxes.deliver(aliceAgain, second));
+        assertEquals(List.of(first, second), mailboxes.receivedBy(aliceAgain), "Both number formats should share one inbox.");
+
+        assertTrue(mailboxes.deliver(alice, third));
+        mailboxes.remove(first);  // read
+        mailboxes.remove(third);  // still unread
+        assertEquals(List.of(second), mailboxes.receivedBy(alice));
+
+        mailboxes.clear();
+        assertEquals(List.of(), mailboxes.receivedBy(alice));
+        mailboxes.restore(second);
+        assertEquals(List.of(second), mailboxes.receivedBy(aliceAgain));
+        assertEquals(0, mailboxes.unreadCount(alice));
+    }
+
+    @Test
+    @DisplayName("Test: Only sent messages are delivered")
+    void testOnlySentMessagesAreDelivered() {
+        User carol = new User("ca_ol", "Carol", "White", "Passw0rd!", "+27830000003");
+        Message draft = new Message("+27830000001", "+27830000003", "Draft", "Stored");
+        Message sent = new Message("+27830000001", "+27830000003", "Hello", "Sent");
+
+        assertNull(Message.deliverMessage(carol, draft));
+        assertEquals("Delivered to ca_ol.", Message.deliverMessage(carol, sent));
+        assertEquals(List.of(sent), Message.getReceivedMessages(carol));
+        assertEquals(MessageStatus.SENT, sent.getStatus());
+    }
+
+    /** Records what a feed hands it and only asks for more when told to. */
+    private static final class RecordingSubscriber implements Flow.Subscriber<List<Message>> {
+        final List<List<Message>> batches = new ArrayList<>();
+        Flow.Subscription subscription;
+        Throwable error;
+        boolean completed;
+
+        @Override
+        public void onSubscribe(Flow.Subscription s) {
+            subscription = s;
+        }
+
+        @Override
+        public void onNext(List<Message> batch) {
+            batches.add(batch);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+    @Test
+    @DisplayName("Test: A feed pushes sent messages in batches only as fast as the subscriber asks")
+    void testFeedBatchesOnDemand() {
+        MessageFeed feed = new MessageFeed(Runnable::run, 4, 256);
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        feed.forRecipient("0831234567").subscribe(subscriber);
+        assertEquals(1, feed.subscriberCount());
+
+        List<Message> sent = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            Message msg = new Message("+27830000001", "+27831234567", "Push " + i, "Sent");
+            sent.add(msg);
+            feed.publish(List.of(msg));
+        }
+        feed.publish(List.of(new Message("+27830000001", "+27831234567", "Draft", "Stored"),
+                new Message("+27830000001", "+27839999999", "Someone else", "Sent")));
+        assertTrue(subscriber.batches.isEmpty(), "Nothing should be pushed before the subscriber asks.");
+        assertEquals(2, feed.droppedCount(), "A full buffer should drop rather than block the sender.");
+
+        subscriber.subscription.request(1);
+        assertEquals(List.of(sent.subList(0, 4)), subscriber.batches, "Waiting messages should arrive as one batch.");
+
+        Message later = new Message("+27830000002", "0831234567", "Later", "Sent");
+        feed.publish(List.of(later));
+        assertEquals(1, subscriber.batches.size());
+        subscriber.subscription.request(1);
+        assertEquals(List.of(later), subscriber.batches.get(1));
+
+        subscriber.subscription.cancel();
+        assertEquals(0, feed.subscriberCount());
+        feed.publish(List.of(new Message("+27830000002", "0831234567", "Too late", "Sent")));
+        assertEquals(2, subscriber.batches.size());
+
+        RecordingSubscriber invalid = new RecordingSubscriber();
+        feed.forRecipient("0831234567").subscribe(invalid);
+        invalid.subscription.request(0);
+        assertTrue(invalid.error instanceof IllegalArgumentException, "Non-positive demand should be an error.");
+        assertEquals(0, feed.subscriberCount());
+
+        RecordingSubscriber closing = new RecordingSubscriber();
+        feed.forRecipient("0831234567").subscribe(closing);
+        feed.close();
+        assertTrue(closing.completed);
+    }
+}
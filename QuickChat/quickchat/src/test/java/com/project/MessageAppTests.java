@@ -6,8 +6,13 @@ import com.project.Model.User;
 import org.junit.jupiter.api.*;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -307,4 +312,33 @@ public class MessageAppTests {
             assertTrue(report.contains("Message ID: " + msg.getMessageID()), "Report should contain ID for " + msg.getContent());
         }
     }
+
+    @Test
+    @DisplayName("Test: Streamed reports and listings match their String versions")
+    void testStreamedOutputMatchesStrings() throws IOException {
+        StringWriter report = new StringWriter();
+        Message.generateSentMessagesReport(report);
+        assertEquals(Message.generateSentMessagesReport(), report.toString());
+
+        StringWriter details = new StringWriter();
+        Message.displaySentMessagesDetails(new PrintWriter(details));
+        assertEquals(Message.displaySentMessagesDetails(), details.toString(), "An unbuffered writer should be flushed.");
+
+        ByteArrayOutputStream recipient = new ByteArrayOutputStream();
+        Message.searchMessagesByRecipient("0830000002", recipient);
+        assertEquals(Message.searchMessagesByRecipient("0830000002"), recipient.toString(StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream listing = new ByteArrayOutputStream();
+        Message.printMessages(Message.getMessages(), listing);
+        assertEquals(Message.printMessages(Message.getMessages()), listing.toString(StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        Message.printMessages(Message.getMessages(), new PrintStream(printed, false, StandardCharsets.UTF_8));
+        assertEquals(Message.printMessages(Message.getMessages()), printed.toString(StandardCharsets.UTF_8),
+                "A print stream should be written through and flushed.");
+
+        StringWriter empty = new StringWriter();
+        Message.printMessages(List.of(), empty);
+        assertEquals("No messages to display.", empty.toString());
+    }
 }
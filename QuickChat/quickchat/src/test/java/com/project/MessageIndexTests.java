@@ -0,0 +1,436 @@
+package com.project;
+
+import com.project.Model.ContentArena;
+import com.project.Model.ContentIndex;
+import com.project.Model.HeapContentArena;
+import com.project.Model.JsonFileStorage;
+import com.project.Model.LengthIndex;
+import com.project.Model.LongIndex;
+import com.project.Model.Message;
+import com.project.Model.MessageColumns;
+import com.project.Model.OffHeapContentArena;
+import com.project.Model.MessageStats;
+import com.project.Model.MessageStatus;
+import com.project.Model.RecipientIndex;
+import com.project.Model.StatusBuckets;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * JUnit 5 tests for the in-memory indexes that back the Message search operations.
+ */
+public class MessageIndexTests {
+
+    @Test
+    @DisplayName("Test: Long index agrees with a HashMap through inserts, overwrites and removals")
+    void testLongIndexMatchesHashMap() {
+        LongIndex<String> index = new LongIndex<>();
+        Map<Long, String> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 20_000; i++) {
+            long key = 1_000_000_000L + random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), index.remove(key));
+            } else {
+                String value = "v" + i;
+                assertEquals(expected.put(key, value), index.put(key, value));
+            }
+        }
+
+        assertEquals(expected.size(), index.size());
+        for (long key = 1_000_000_000L; key < 1_000_005_000L; key++) {
+            assertEquals(expected.get(key), index.get(key), "Lookup mismatch for key " + key);
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Long index handles key zero and conditional removal")
+    void testLongIndexZeroKeyAndConditionalRemove() {
+        LongIndex<String> index = new LongIndex<>();
+        index.put(0L, "zero");
+        index.put(7L, "seven");
+        assertEquals("zero", index.get(0L));
+        assertFalse(index.remove(7L, "other"), "Removal should be skipped when the value differs.");
+        assertTrue(index.remove(7L, "seven"));
+        assertNull(index.get(7L));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    @DisplayName("Test: Message lookup by ID and hash goes through the indexes and follows store and delete")
+    void testFindMessageFollowsStoreAndDelete() {
+        File testFile = new File("index-test-messages.json");
+        Message.useStorage(new JsonFileStorage(testFile));
+        try {
+            Message.loadMessagesFromJson();
+            Message msg = new Message("+27830000001", "+27830000002", "Indexed by ID", "Sent");
+            Message.storeMessage(List.of(msg));
+
+            assertSame(msg, Message.findMessageById(msg.getMessageID()));
+            assertSame(msg, Message.findMessageByHash(msg.getHash()));
+            Message.deleteMessageByHash(msg.getHash());
+            assertNull(Message.findMessageById(msg.getMessageID()), "Deleted messages should leave the ID index.");
+            assertNull(Message.findMessageByHash(msg.getHash()), "Deleted messages should leave the hash index.");
+        } finally {
+            testFile.delete();
+            MessageStoreReset.reset();
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Recipient index treats +27 and 0 forms of a number as the same recipient")
+    void testRecipientIndexIsFormatInsensitive() {
+        RecipientIndex index = new RecipientIndex();
+        Message international = new Message("+27830000001", "+27831234567", "To the +27 form", "Sent");
+        Message local = new Message("+27830000001", "0831234567", "To the 0 form", "Stored");
+        Message discarded = new Message("+27830000001", "0831234567", "Discarded", "Disregard");
+        Message other = new Message("+27830000001", "12345", "Not a cell number", "Sent");
+        index.add(international);
+        index.add(local);
+        index.add(discarded);
+        index.add(other);
+
+        assertEquals(RecipientIndex.canonicalKey("+27831234567"), RecipientIndex.canonicalKey("0831234567"));
+        assertEquals(List.of(international, local), index.find("0831234567", MessageStatus.SENT, MessageStatus.STORED));
+        assertEquals(List.of(international, local), index.find("+27831234567", MessageStatus.SENT, MessageStatus.STORED));
+        assertEquals(List.of(other), index.find("12345", MessageStatus.SENT));
+
+        index.remove(local);
+        assertEquals(List.of(international), index.find("+27831234567", MessageStatus.SENT, MessageStatus.STORED));
+        assertEquals(List.of(discarded), index.find("+27831234567", MessageStatus.DISREGARD));
+
+        Message padded = new Message("+27830000001", " 12345 ", "Padded", "Sent");
+        index.add(padded);
+        assertEquals(List.of(other, padded), index.find("12345", MessageStatus.SENT));
+        assertEquals(2, index.size());
+
+        index.remove(international);
+        index.remove(discarded);
+        index.remove(other);
+        index.remove(padded);
+        assertEquals(0, index.size());
+        assertEquals(List.of(), index.find("0831234567", MessageStatus.SENT));
+    }
+
+    @Test
+    @DisplayName("Test: Message hash is computed once and recomputed only after a relevant change")
+    void testHashIsMemoized() {
+        Message msg = new Message("+27830000001", "+27830000002", "Hello there", "Sent");
+        String first = msg.getHash();
+        assertSame(first, msg.getHash(), "Repeated calls should return the cached hash.");
+
+        msg.setFlag("Stored");
+        assertSame(first, msg.getHash(), "Changing the status does not affect the hash.");
+
+        msg.setContent("Goodbye now");
+        assertTrue(msg.getHash().endsWith(":GOODBYENOW"), "Changing the content should recompute the hash.");
+        msg.setMessageNumber(7);
+        assertEquals(msg.createMessageHash(), msg.getHash());
+
+        new MessageColumns(16, new HeapContentArena()).bind(msg);
+        String bound = msg.getHash();
+        assertEquals(msg.createMessageHash(), bound);
+        assertNotSame(bound, msg.getHash(), "A message in a column store should not keep its hash.");
+    }
+
+    @Test
+    @DisplayName("Test: Keyword search supports AND, OR and prefix queries and forgets removed messages")
+    void testContentIndexQueries() {
+        ContentIndex index = new ContentIndex();
+        Message cake = new Message("+27830000001", "+27830000002", "Did you get the cake?", "Sent");
+        Message late = new Message("0838884567", "+27830000002", "Where are you? You are late!", "Stored");
+        Message gate = new Message("0838884567", "+27830000002", "Yohoooo, I am at your GATE.", "Disregard");
+        index.add(cake);
+        index.add(late);
+        index.add(gate);
+
+        assertEquals(List.of(late), index.search("you late"), "Adjacent words should all have to match.");
+        assertEquals(List.of(late), index.search("you AND late"));
+        assertEquals(List.of(cake, gate), index.search("cake OR gate"), "OR results should come back in stored order.");
+        assertEquals(List.of(gate), index.search("ga*"), "A trailing * should match by prefix.");
+        assertEquals(List.of(cake, late), index.search("you*  AND  the OR late"));
+        assertTrue(index.search("pizza").isEmpty());
+
+        index.remove(late);
+        assertTrue(index.search("late").isEmpty(), "Removed messages should no longer match.");
+        assertEquals(List.of(cake, gate), index.search("you*"), "\"your\" still matches the prefix.");
+    }
+
+    @Test
+    @DisplayName("Test: Keyword search reuses freed documents without stale matches or reordering")
+    void testContentIndexReusesDocuments() {
+        ContentIndex index = new ContentIndex();
+        Message keep = new Message("+27830000001", "+27830000002", "keep this cake", "Sent");
+        index.add(keep);
+        for (int round = 0; round < 3; round++) {
+            List<Message> batch = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                Message msg = new Message("+27830000001", "+27830000002", "round" + round + " cake " + i, "Sent");
+                batch.add(msg);
+                index.add(msg);
+            }
+            assertEquals(201, index.size());
+            List<Message> expected = new ArrayList<>(List.of(keep));
+            expected.addAll(batch);
+            assertEquals(expected, index.search("cake"), "Results should stay in the order messages were indexed.");
+            assertEquals(batch, index.search("round" + round + "*"));
+            for (Message msg : batch) {
+                index.remove(msg);
+            }
+            assertTrue(index.search("round" + round).isEmpty(), "Removed messages should not match.");
+        }
+        assertEquals(List.of(keep), index.search("cake"));
+        assertTrue(index.search("round0 OR round1*").isEmpty(), "Reused documents should not match an earlier message's words.");
+    }
+
+    @Test
+    @DisplayName("Test: Length index keeps the longest message and top-K lists current across deletes")
+    void testLengthIndexTopK() {
+        LengthIndex index = new LengthIndex();
+        Message shortMsg = new Message("+27830000001", "+27830000002", "Hi", "Sent");
+        Message medium = new Message("+27830000001", "+27830000002", "Hello there", "Sent");
+        Message tieFirst = new Message("+27830000001", "+27830000002", "A much longer message", "Stored");
+        Message tieSecond = new Message("+27830000001", "+27830000002", "Another long message!", "Stored");
+        for (Message msg : List.of(shortMsg, medium, tieFirst, tieSecond)) {
+            index.add(msg);
+        }
+
+        assertSame(tieFirst, index.longest(), "Ties should go to the earliest message.");
+        assertEquals(List.of(tieFirst, tieSecond, medium), index.longest(3));
+        assertEquals(List.of(shortMsg, medium), index.shortest(2));
+
+        index.remove(tieFirst);
+        assertSame(tieSecond, index.longest(), "Deleting the longest should promote the next one.");
+        index.remove(tieSecond);
+        assertSame(medium, index.longest());
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    @DisplayName("Test: Status buckets move messages on a status change and expose read-only views")
+    void testStatusBucketsTransitions() {
+        StatusBuckets buckets = new StatusBuckets();
+        Message first = new Message("+27830000001", "+27830000002", "First", "Sent");
+        Message second = new Message("+27830000001", "+27830000002", "Second", "Stored");
+        Message third = new Message("+27830000001", "+27830000002", "Third", "Sent");
+        Message unfiled = new Message("+27830000001", "+27830000002", "Never added", "Sent");
+        buckets.add(first);
+        buckets.add(second);
+        buckets.add(third);
+
+        List<Message> sent = buckets.view(MessageStatus.SENT);
+        assertEquals(List.of(first, third), sent);
+        assertEquals(third, sent.get(1));
+        assertThrows(UnsupportedOperationException.class, () -> sent.add(unfiled));
+
+        MessageStatus before = second.getStatus();
+        second.setFlag("sent");
+        buckets.move(second, before);
+        assertEquals(List.of(first, third, second), sent, "Views should follow status changes.");
+        assertEquals(0, buckets.size(MessageStatus.STORED));
+
+        before = unfiled.getStatus();
+        unfiled.setFlag("Disregard");
+        buckets.move(unfiled, before);
+        assertEquals(0, buckets.size(MessageStatus.DISREGARD), "Messages that were never added should not be filed.");
+
+        buckets.remove(first);
+        assertEquals(List.of(third, second), sent);
+        assertEquals(MessageStatus.STORED, MessageStatus.fromFlag("STORED"));
+        assertNull(MessageStatus.fromFlag("Archived"));
+    }
+
+    @Test
+    @DisplayName("Test: Frozen status lists never change and agree with a plain list through adds and removals")
+    void testStatusBucketsFreeze() {
+        StatusBuckets buckets = new StatusBuckets();
+        List<Message> expected = new ArrayList<>();
+        List<List<Message>> frozen = new ArrayList<>();
+        List<List<Message>> frozenExpected = new ArrayList<>();
+        Random random = new Random(7);
+
+        for (int i = 0; i < 5_000; i++) {
+            if (!expected.isEmpty() && random.nextInt(3) == 0) {
+                Message gone = expected.remove(random.nextInt(expected.size()));
+                buckets.remove(gone);
+            } else {
+                Message msg = new Message("+27830000001", "+27830000002", "Message " + i, "Sent");
+                expected.add(msg);
+                buckets.add(msg);
+            }
+            if (i % 250 == 0) {
+                frozen.add(buckets.freeze(MessageStatus.SENT));
+                frozenExpected.add(List.copyOf(expected));
+            }
+        }
+
+        List<Message> view = buckets.view(MessageStatus.SENT);
+        assertEquals(expected, view);
+        for (int i = 0; i < expected.size(); i += 97) {
+            assertSame(expected.get(i), view.get(i));
+        }
+        assertEquals(expected, buckets.freeze(MessageStatus.SENT));
+        assertEquals(frozenExpected, frozen, "Later adds and removals should not show in frozen lists.");
+        assertThrows(UnsupportedOperationException.class, () -> frozen.get(0).set(0, null));
+    }
+
+    @Test
+    @DisplayName("Test: Message stats follow stores, deletes and status changes")
+    void testMessageStatsCounters() {
+        MessageStats stats = new MessageStats();
+        Message a = new Message("+27830000001", "+27830000002", "Hi", "Sent");
+        Message b = new Message("0830000001", "+27830000003", "Hello there", "Stored");
+        Message c = new Message("+27830000004", "0830000002", "", "Disregard");
+        stats.record(a);
+        stats.record(b);
+        stats.record(c);
+
+        assertEquals(3, stats.total());
+        assertEquals(1, stats.count(MessageStatus.SENT));
+        assertEquals(2, stats.sentBy("0830000001"), "Both number formats should count together.");
+        assertEquals(2, stats.receivedBy("+27830000002"));
+        assertEquals(13 / 3.0, stats.averageLength(), 1e-9);
+        long[] histogram = stats.lengthHistogram();
+        assertEquals(1, histogram[0]); // ""
+        assertEquals(1, histogram[2]); // "Hi"
+        assertEquals(1, histogram[4]); // "Hello there", 8-15 characters
+        assertEquals(List.of(new MessageStats.Talker("+27830000001", 2), new MessageStats.Talker("+27830000004", 1)),
+                stats.topSenders(2));
+
+        stats.statusChanged(MessageStatus.STORED, MessageStatus.SENT);
+        assertEquals(2, stats.count(MessageStatus.SENT));
+        assertEquals(0, stats.count(MessageStatus.STORED));
+
+        stats.forget(a);
+        assertEquals(2, stats.total());
+        assertEquals(1, stats.sentBy("+27830000001"));
+        assertEquals(1, stats.receivedBy("0830000002"));
+        assertEquals(List.of(new MessageStats.Talker("+27830000002", 1), new MessageStats.Talker("+27830000003", 1)),
+                stats.topRecipients(5), "Numbers with no messages left should drop out.");
+        assertTrue(stats.report().contains("Total messages (including sent, stored, disregarded, loaded from file): 2"));
+    }
+
+    @Test
+    @DisplayName("Test: Column store keeps every field intact, including values that do not pack")
+    void testMessageColumnsRoundTrip() {
+        MessageColumns columns = new MessageColumns(16);
+        Message packed = new Message("+27830000001", "0830000002", "Packed fields é", "Sent");
+        Message odd = new Message("12345", null, null, "sent");
+        odd.setMessageID("0042");
+        String packedId = packed.getMessageID();
+        String packedHash = packed.getHash();
+        columns.bind(packed);
+        columns.bind(odd);
+
+        assertEquals(2, columns.size());
+        assertEquals(packedId, packed.getMessageID());
+        assertEquals("+27830000001", packed.getSender());
+        assertEquals("0830000002", packed.getRecipient());
+        assertEquals("Packed fields é", packed.getContent());
+        assertEquals("Sent", packed.getFlag());
+        assertEquals(packedHash, packed.getHash());
+        assertEquals("0042", odd.getMessageID());
+        assertEquals("12345", odd.getSender());
+        assertNull(odd.getRecipient());
+        assertNull(odd.getContent());
+        assertEquals("sent", odd.getFlag(), "Flags keep their original spelling.");
+
+        packed.setFlag("Stored");
+        packed.setRecipient("+44 20 7946 0000");
+        for (int i = 0; i < 5000; i++) {
+            packed.setContent("Rewritten content number " + i); // forces arena compaction
+        }
+        assertEquals("Stored", packed.getFlag());
+        assertEquals("+44 20 7946 0000", packed.getRecipient());
+        assertEquals("Rewritten content number 4999", packed.getContent());
+
+        columns.unbind(packed);
+        assertEquals(1, columns.size());
+        assertEquals("Rewritten content number 4999", packed.getContent(), "Unbinding should copy the fields back.");
+        Message reused = new Message("0830000003", "0830000004", "Reuses the freed row", "Disregard");
+        columns.bind(reused);
+        assertEquals("0830000003", reused.getSender());
+        assertEquals("Rewritten content number 4999", packed.getContent());
+    }
+
+    @Test
+    @DisplayName("Test: Messages behave the same with the columnar store switched on")
+    void testColumnarStoreBehindMessageAccessors() {
+        File testFile = new File("columns-test-messages.json");
+        Message.useStorage(new JsonFileStorage(testFile));
+        try {
+            Message.loadMessagesFromJson();
+            Message.useColumnarStore(true);
+            Message msg = new Message("+27830000001", "0830000002", "Stored in columns", "Stored");
+            Message.storeMessage(List.of(msg));
+
+            assertSame(msg, Message.findMessageById(msg.getMessageID()));
+            assertEquals(List.of(msg), Message.findMessagesByKeyword("columns"));
+            msg.setFlag("Sent");
+            assertTrue(Message.getSentMessages().contains(msg));
+            assertEquals("Stored in columns", Message.getLongestMessageContent());
+
+            Message.loadMessagesFromJson();
+            Message reloaded = Message.findMessageById(msg.getMessageID());
+            assertEquals("0830000002", reloaded.getRecipient());
+            assertEquals("Stored", reloaded.getFlag(), "Status changes are not written to storage.");
+            assertEquals("Message \"Stored in columns\" successfully deleted.", Message.deleteMessageByHash(reloaded.getHash()));
+            assertEquals("Stored in columns", reloaded.getContent());
+        } finally {
+            Message.useColumnarStore(false);
+            testFile.delete();
+            MessageStoreReset.reset();
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Off-heap content arena stores bodies outside the heap and survives compaction")
+    void testOffHeapContentArena() {
+        OffHeapContentArena arena = new OffHeapContentArena(1024);
+        MessageColumns columns = new MessageColumns(16, arena);
+        Message small = new Message("+27830000001", "+27830000002", "Kept off the heap ✓", "Sent");
+        Message large = new Message("+27830000001", "+27830000002", "x".repeat(3000), "Stored");
+        columns.bind(small);
+        columns.bind(large);
+
+        assertEquals("Kept off the heap ✓", small.getContent());
+        assertEquals(3000, large.getContent().length(), "Bodies larger than a chunk get a chunk of their own.");
+        assertTrue(arena.bytesReserved() >= 3000 + 1024);
+
+        for (int i = 0; i < 20000; i++) {
+            small.setContent("Rewrite " + i);
+        }
+        assertEquals("Rewrite 19999", small.getContent());
+        assertEquals("x".repeat(3000), large.getContent());
+        assertNotSame(arena, columns.getArena(), "Compaction should move content into a fresh arena.");
+        assertTrue(columns.getArena() instanceof OffHeapContentArena);
+    }
+
+    @Test
+    @DisplayName("Test: Empty messages stay readable after the content arena is compacted")
+    void testEmptyContentSurvivesCompaction() {
+        for (ContentArena arena : List.of(new HeapContentArena(64), new OffHeapContentArena(1024))) {
+            MessageColumns columns = new MessageColumns(16, arena);
+            Message empty = new Message("+27830000001", "+27830000002", "", "Stored");
+            Message busy = new Message("+27830000001", "+27830000002", "Busy", "Stored");
+            columns.bind(busy);
+            columns.bind(empty);
+
+            for (int i = 0; i < 20000; i++) {
+                busy.setContent("Rewrite " + i);
+            }
+            assertNotSame(arena, columns.getArena(), "Compaction should move content into a fresh arena.");
+            assertEquals("", empty.getContent());
+            assertEquals("Rewrite 19999", busy.getContent());
+        }
+    }
+}
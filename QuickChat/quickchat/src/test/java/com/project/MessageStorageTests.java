@@ -0,0 +1,348 @@
+package com.project;
+
+import com.project.Model.DurabilityPolicy;
+import com.project.Model.GroupCommitWriter;
+import com.project.Model.JsonFileStorage;
+import com.project.Model.Message;
+import com.project.Model.MessageLog;
+import com.project.Model.MessageStorage;
+import com.project.Model.SegmentStorage;
+import com.project.Model.StreamingJsonLoader;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JUnit 5 tests for the message storage backends, exercised directly
+ * against temporary files so they do not touch messages.json.
+ */
+public class MessageStorageTests {
+
+    @TempDir
+    Path tempDir;
+
+    private static List<Message> readAll(MessageStorage storage) throws IOException {
+        List<Message> loaded = new ArrayList<>();
+        storage.load(loaded::add);
+        return loaded;
+    }
+
+    @Test
+    @DisplayName("Test: Append-only log writes one line per message and reloads them in order")
+    void testMessageLogAppendAndReload() throws IOException {
+        File logFile = tempDir.resolve("messages.log").toFile();
+        Message first = new Message("+27830000001", "+27830000002", "First message", "Sent");
+        Message second = new Message("+27830000002", "+27830000001", "Second message", "Stored");
+
+        try (MessageLog log = new MessageLog(logFile)) {
+            log.append(List.of(first), List.of(first));
+            log.append(List.of(second), List.of(first, second));
+        }
+
+        assertEquals(2, Files.readAllLines(logFile.toPath()).size(), "Each append should add exactly one line per message.");
+
+        List<Message> loaded = readAll(new MessageLog(logFile));
+        assertEquals(2, loaded.size());
+        assertEquals(first.getMessageID(), loaded.get(0).getMessageID());
+        assertEquals("Second message", loaded.get(1).getContent());
+    }
+
+    @Test
+    @DisplayName("Test: Legacy messages.json is migrated into the log on first load")
+    void testMessageLogMigratesLegacyJson() throws IOException {
+        File legacyFile = tempDir.resolve("messages.json").toFile();
+        File logFile = tempDir.resolve("messages.log").toFile();
+        Message legacy = new Message("0838884567", "+27830000002", "From the old file", "Sent");
+        new JsonFileStorage(legacyFile).write(List.of(legacy));
+
+        List<Message> loaded = readAll(new MessageLog(logFile, legacyFile));
+        assertEquals(1, loaded.size());
+        assertEquals("From the old file", loaded.get(0).getContent());
+        assertTrue(logFile.exists(), "Migration should create the log file.");
+        assertEquals(1, readAll(new MessageLog(logFile)).size(), "The migrated log should be readable on its own.");
+    }
+
+    @Test
+    @DisplayName("Test: Snapshot plus log tail restores every message and keeps the log short")
+    void testSnapshotAndLogTailReplay() throws IOException {
+        File logFile = tempDir.resolve("messages.log").toFile();
+        File snapshotFile = tempDir.resolve("messages.snapshot").toFile();
+        List<Message> all = new ArrayList<>();
+
+        try (MessageLog log = new MessageLog(logFile, snapshotFile, null, 3)) {
+            for (int i = 0; i < 5; i++) {
+                Message msg = new Message("+27830000001", "+27830000002", "Message " + i, "Sent");
+                all.add(msg);
+                log.append(List.of(msg), all);
+            }
+        }
+
+        assertTrue(snapshotFile.exists(), "A snapshot should be taken after three records.");
+        assertEquals(2, Files.readAllLines(logFile.toPath()).size(), "Only the records after the snapshot should remain in the log.");
+
+        List<Message> loaded = readAll(new MessageLog(logFile, snapshotFile, null, 3));
+        assertEquals(5, loaded.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals("Message " + i, loaded.get(i).getContent(), "Messages should come back in their original order.");
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Rewriting a log that has a snapshot stores each message exactly once")
+    void testRewriteReplacesSnapshot() throws IOException {
+        File logFile = tempDir.resolve("messages.log").toFile();
+        File snapshotFile = tempDir.resolve("messages.snapshot").toFile();
+        List<Message> all = new ArrayList<>();
+        try (MessageLog log = new MessageLog(logFile, snapshotFile, null, 3)) {
+            for (int i = 0; i < 5; i++) {
+                Message msg = new Message("+27830000001", "+27830000002", "Message " + i, "Sent");
+                all.add(msg);
+                log.append(List.of(msg), all);
+            }
+        }
+        assertTrue(snapshotFile.exists());
+
+        try (MessageLog log = new MessageLog(logFile, snapshotFile, null, 3)) {
+            log.load(msg -> {});
+            log.rewrite(all.subList(1, 5));
+        }
+
+        List<Message> loaded = readAll(new MessageLog(logFile, snapshotFile, null, 3));
+        assertEquals(List.of("Message 1", "Message 2", "Message 3", "Message 4"),
+                loaded.stream().map(Message::getContent).toList());
+    }
+
+    @Test
+    @DisplayName("Test: Snapshots leave out messages still waiting to be written")
+    void testSnapshotSkipsUnwrittenMessages() throws IOException {
+        File logFile = tempDir.resolve("messages.log").toFile();
+        File snapshotFile = tempDir.resolve("messages.snapshot").toFile();
+        Message first = new Message("+27830000001", "+27830000002", "First", "Sent");
+        Message second = new Message("+27830000001", "+27830000002", "Second", "Sent");
+        Message queued = new Message("+27830000001", "+27830000002", "Queued", "Sent");
+
+        try (MessageLog log = new MessageLog(logFile, snapshotFile, null)) {
+            log.append(List.of(first, second), List.of(first, second));
+            assertTrue(log.compactAsync(List.of(first, second, queued)));
+            log.awaitCompaction();
+            log.append(List.of(queued), List.of(first, second, queued));
+        }
+
+        assertEquals(List.of("First", "Second", "Queued"),
+                readAll(new MessageLog(logFile, snapshotFile, null)).stream().map(Message::getContent).toList());
+    }
+
+    @Test
+    @DisplayName("Test: Legacy messages.json is migrated straight into a snapshot")
+    void testLegacyJsonMigratesToSnapshot() throws IOException {
+        File legacyFile = tempDir.resolve("messages.json").toFile();
+        File logFile = tempDir.resolve("messages.log").toFile();
+        File snapshotFile = tempDir.resolve("messages.snapshot").toFile();
+        new JsonFileStorage(legacyFile).write(List.of(
+                new Message("0838884567", "+27830000002", "Old one", "Sent"),
+                new Message("0838884567", "+27830000002", "Old two", "Stored")));
+
+        assertEquals(2, readAll(new MessageLog(logFile, snapshotFile, legacyFile)).size());
+        assertTrue(snapshotFile.exists(), "Migration should write a snapshot.");
+
+        List<Message> reloaded = readAll(new MessageLog(logFile, snapshotFile, null));
+        assertEquals(2, reloaded.size(), "The snapshot alone should hold the migrated messages.");
+        assertEquals("Stored", reloaded.get(1).getFlag());
+    }
+
+    @Test
+    @DisplayName("Test: Streaming loader reads a JSON array one message at a time and reports progress")
+    void testStreamingJsonLoader() throws IOException {
+        File jsonFile = tempDir.resolve("messages.json").toFile();
+        List<Message> written = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            written.add(new Message("+27830000001", "0838884567", "Bulk message " + i, i % 2 == 0 ? "Sent" : "Stored"));
+        }
+        new JsonFileStorage(jsonFile).write(written);
+
+        List<Message> loaded = new ArrayList<>();
+        long[] lastProgress = new long[1];
+        long count = StreamingJsonLoader.load(jsonFile, loaded::add,
+                (messagesRead, bytesRead, totalBytes, messagesPerSecond) -> lastProgress[0] = messagesRead);
+
+        assertEquals(50, count);
+        assertEquals(50, loaded.size());
+        assertEquals(50, lastProgress[0], "A final progress update should report every message.");
+        assertEquals("Bulk message 49", loaded.get(49).getContent());
+    }
+
+    @Test
+    @DisplayName("Test: Group commit writer completes every future and persists every queued message")
+    void testGroupCommitWriter() throws Exception {
+        File logFile = tempDir.resolve("messages.log").toFile();
+        List<Message> all = new ArrayList<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        try (GroupCommitWriter writer = GroupCommitWriter.start(new MessageLog(logFile), DurabilityPolicy.everyMessages(8))) {
+            for (int i = 0; i < 20; i++) {
+                Message msg = new Message("+27830000001", "+27830000002", "Queued " + i, "Sent");
+                all.add(msg);
+                futures.add(writer.appendAsync(List.of(msg), all));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+        }
+
+        List<Message> loaded = readAll(new MessageLog(logFile));
+        assertEquals(20, loaded.size(), "Every queued message should be on disk once its future completes.");
+        assertEquals("Queued 19", loaded.get(19).getContent());
+    }
+
+    @Test
+    @DisplayName("Test: Group commit writer compacts after queued deletes once the writer finds enough dead records")
+    void testGroupCommitWriterCompactsAfterDeletes() throws Exception {
+        File logFile = tempDir.resolve("messages.log").toFile();
+        MessageLog log = new MessageLog(logFile);
+        List<Message> live = new ArrayList<>();
+
+        try (GroupCommitWriter writer = GroupCommitWriter.start(log, DurabilityPolicy.everyWrite())) {
+            for (int i = 0; i < 40; i++) {
+                Message msg = new Message("+27830000001", "+27830000002", "Keep or drop " + i, "Sent");
+                live.add(msg);
+                writer.appendAsync(List.of(msg), live);
+            }
+            for (int i = 0; i < 16; i++) {
+                writer.deleteAsync(live.remove(0), live).get(5, TimeUnit.SECONDS);
+            }
+            log.awaitCompaction();
+            assertEquals(32, log.getDeadRecords(), "Compaction waits for a caller to hand over the live messages.");
+
+            writer.deleteAsync(live.remove(0), live).get(5, TimeUnit.SECONDS);
+            log.awaitCompaction();
+            assertEquals(0, log.getDeadRecords());
+        }
+
+        assertEquals(23, Files.readAllLines(logFile.toPath()).size(), "Only live messages should remain after compaction.");
+        assertEquals("Keep or drop 17", readAll(new MessageLog(logFile)).get(0).getContent());
+    }
+
+    @Test
+    @DisplayName("Test: Deletes are tombstones and compaction reclaims them in the background")
+    void testTombstoneDeletesAndCompaction() throws IOException {
+        File logFile = tempDir.resolve("messages.log").toFile();
+        List<Message> live = new ArrayList<>();
+
+        try (MessageLog log = new MessageLog(logFile)) {
+            for (int i = 0; i < 40; i++) {
+                Message msg = new Message("+27830000001", "+27830000002", "Keep or drop " + i, "Sent");
+                live.add(msg);
+                log.append(List.of(msg), live);
+            }
+
+            long sizeBeforeDelete = logFile.length();
+            Message first = live.remove(0);
+            log.delete(first, live);
+            assertTrue(logFile.length() - sizeBeforeDelete < 64, "A delete should only append a small tombstone.");
+
+            for (int i = 0; i < 15; i++) {
+                Message dropped = live.remove(0);
+                log.delete(dropped, live);
+            }
+            log.awaitCompaction();
+            assertEquals(0, log.getDeadRecords(), "Compaction should have dropped every dead record.");
+        }
+
+        assertEquals(24, Files.readAllLines(logFile.toPath()).size(), "Only live messages should remain after compaction.");
+        List<Message> loaded = readAll(new MessageLog(logFile));
+        assertEquals(24, loaded.size());
+        assertEquals("Keep or drop 16", loaded.get(0).getContent());
+    }
+
+    @Test
+    @DisplayName("Test: Tombstones hide messages that are already in the snapshot")
+    void testTombstoneAfterSnapshot() throws IOException {
+        File logFile = tempDir.resolve("messages.log").toFile();
+        File snapshotFile = tempDir.resolve("messages.snapshot").toFile();
+        Message kept = new Message("+27830000001", "+27830000002", "Kept", "Sent");
+        Message dropped = new Message("+27830000001", "+27830000002", "Dropped", "Stored");
+
+        try (MessageLog log = new MessageLog(logFile, snapshotFile, null)) {
+            log.append(List.of(kept, dropped), List.of(kept, dropped));
+            log.snapshot(List.of(kept, dropped));
+            log.delete(dropped, List.of(kept));
+        }
+
+        List<Message> loaded = readAll(new MessageLog(logFile, snapshotFile, null));
+        assertEquals(1, loaded.size());
+        assertEquals("Kept", loaded.get(0).getContent());
+    }
+
+    @Test
+    @DisplayName("Test: Deleting one of several messages sharing an ID keeps the others after a reload")
+    void testTombstonesDeleteOneRecordOfADuplicateId() throws IOException {
+        File logFile = tempDir.resolve("messages.log").toFile();
+        File snapshotFile = tempDir.resolve("messages.snapshot").toFile();
+        Message inSnapshot = new Message("+27830000001", "+27830000002", "In the snapshot", "Sent");
+        Message inTail = new Message("+27830000001", "+27830000002", "In the tail", "Sent");
+        Message deleted = new Message("+27830000001", "+27830000002", "Deleted", "Sent");
+        inTail.setMessageID(inSnapshot.getMessageID());
+        deleted.setMessageID(inSnapshot.getMessageID());
+
+        try (MessageLog log = new MessageLog(logFile, snapshotFile, null)) {
+            log.append(List.of(inSnapshot), List.of(inSnapshot));
+            log.snapshot(List.of(inSnapshot));
+            log.append(List.of(deleted, inTail), List.of(inSnapshot, deleted, inTail));
+            log.delete(deleted, List.of(inSnapshot, inTail));
+        }
+        List<Message> loaded = readAll(new MessageLog(logFile, snapshotFile, null));
+        assertEquals(List.of("In the snapshot", "In the tail"), loaded.stream().map(Message::getContent).toList());
+
+        try (MessageLog log = new MessageLog(logFile, snapshotFile, null)) {
+            List<Message> reloaded = readAll(log);
+            log.delete(reloaded.get(0), reloaded.subList(1, 2));
+        }
+        loaded = readAll(new MessageLog(logFile, snapshotFile, null));
+        assertEquals(List.of("In the tail"), loaded.stream().map(Message::getContent).toList(),
+                "Deleting the snapshot's copy should leave the one in the log tail.");
+
+        File directory = tempDir.resolve("segments").toFile();
+        try (SegmentStorage segments = new SegmentStorage(directory)) {
+            segments.append(List.of(inSnapshot, deleted, inTail), List.of(inSnapshot, deleted, inTail));
+            segments.delete(deleted, List.of(inSnapshot, inTail));
+        }
+        loaded = readAll(new SegmentStorage(directory));
+        assertEquals(List.of("In the snapshot", "In the tail"), loaded.stream().map(Message::getContent).toList());
+    }
+
+    @Test
+    @DisplayName("Test: Segment storage rolls over segments and serves reads from the mapped files")
+    void testSegmentStorage() throws IOException {
+        File directory = tempDir.resolve("segments").toFile();
+        List<Message> written = new ArrayList<>();
+        long firstAddress;
+
+        try (SegmentStorage segments = new SegmentStorage(directory, 4096)) {
+            Message first = new Message("+27830000001", "0838884567", "Mapped message 0", "Sent");
+            written.add(first);
+            firstAddress = segments.put(first);
+            for (int i = 1; i < 100; i++) {
+                Message msg = new Message("+27830000001", "0838884567", "Mapped message " + i, "Stored");
+                written.add(msg);
+                segments.append(List.of(msg), written);
+            }
+            segments.delete(written.get(50), written);
+
+            assertTrue(segments.getSegmentCount() > 1, "Records should roll over into more than one segment.");
+            assertEquals("Mapped message 0", segments.read(firstAddress).getContent());
+        }
+
+        List<Message> loaded = readAll(new SegmentStorage(directory, 4096));
+        assertEquals(99, loaded.size(), "The deleted message should not be loaded.");
+        assertEquals(written.get(0).getMessageID(), loaded.get(0).getMessageID());
+        assertFalse(loaded.stream().anyMatch(m -> m.getContent().equals("Mapped message 50")));
+    }
+}
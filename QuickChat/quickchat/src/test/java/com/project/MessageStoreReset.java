@@ -0,0 +1,23 @@
+package com.project;
+
+import com.project.Model.JsonFileStorage;
+import com.project.Model.Message;
+
+import java.io.File;
+
+/**
+ * Puts the shared static message store back the way a fresh JVM has it, for tests that
+ * point it somewhere else: empty, and backed by messages.json in the working directory.
+ * Reloading messages.json instead would leave its messages behind for the next test class.
+ */
+final class MessageStoreReset {
+
+    private MessageStoreReset() {}
+
+    static void reset() {
+        File missing = new File(System.getProperty("java.io.tmpdir"), "quickchat-empty-" + System.nanoTime() + ".json");
+        Message.useStorage(new JsonFileStorage(missing));
+        Message.loadMessagesFromJson(); // nothing to read, so this only clears memory
+        Message.useStorage(new JsonFileStorage(new File("messages.json")));
+    }
+}
@@ -0,0 +1,355 @@
+package com.project;
+
+import com.project.Model.DurabilityPolicy;
+import com.project.Model.GroupCommitWriter;
+import com.project.Model.Message;
+import com.project.Model.MessageIdAllocator;
+import com.project.Model.MessageImporter;
+import com.project.Model.MessageLog;
+import com.project.Model.MessageStatus;
+import com.project.Model.MessageStore;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JUnit 5 tests for MessageStore used from many threads at once, against a message log
+ * in a temporary directory.
+ */
+public class MessageStoreTests {
+
+    private static final int WRITERS = 8;
+    private static final int READERS = 4;
+    private static final int MESSAGES_PER_WRITER = 300;
+
+    @TempDir
+    Path tempDir;
+
+    private MessageStore newStore() {
+        MessageLog log = new MessageLog(tempDir.resolve("messages.log").toFile(),
+                tempDir.resolve("messages.snapshot").toFile(), null);
+        return new MessageStore(GroupCommitWriter.start(log, DurabilityPolicy.everyWrite()));
+    }
+
+    private static Message message(int writer, int i) {
+        Message msg = new Message("+2783000000" + writer, "+2783100000" + (i % 10),
+                "writer " + writer + " message " + i + (i % 2 == 0 ? " even" : " odd"), i % 3 == 0 ? "Stored" : "Sent");
+        msg.setMessageID(String.valueOf(1_000_000_000L + writer * 100_000L + i));
+        return msg;
+    }
+
+    @Test
+    @DisplayName("Test: Concurrent stores, deletes, status changes and reads leave the store consistent")
+    void testConcurrentStoreSearchAndDelete() throws Exception {
+        MessageStore store = newStore();
+        store.load();
+        Queue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS + READERS);
+
+        List<Future<List<Message>>> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            writers.add(pool.submit(() -> {
+                start.await();
+                List<Message> kept = new ArrayList<>();
+                for (int i = 0; i < MESSAGES_PER_WRITER; i++) {
+                    Message msg = message(writer, i);
+                    store.storeAsync(List.of(msg));
+                    if (i % 5 == 4) {
+                        assertSame(msg, store.delete(msg.getHash()), "Writers should delete exactly their own message.");
+                    } else {
+                        if (i % 7 == 0) {
+                            msg.setFlag("Disregard");
+                        }
+                        kept.add(msg);
+                    }
+                }
+                return kept;
+            }));
+        }
+        for (int r = 0; r < READERS; r++) {
+            pool.submit(() -> {
+                try {
+                    start.await();
+                    while (writing.get()) {
+                        MessageStore.Snapshot snapshot = store.snapshot();
+                        assertEquals(snapshot.messages().size(), new HashSet<>(snapshot.messages()).size(),
+                                "A snapshot should never list a message twice.");
+                        for (Message m : store.findByKeyword("even")) {
+                            assertTrue(m.getContent().endsWith(" even"));
+                        }
+                        for (Message m : store.findByRecipient("0831000003", MessageStatus.SENT)) {
+                            assertEquals("+27831000003", m.getRecipient());
+                        }
+                        if (!snapshot.messages().isEmpty()) {
+                            Message any = snapshot.messages().get(snapshot.messages().size() / 2);
+                            Message byId = store.findById(any.getMessageID());
+                            assertTrue(byId == null || byId.getMessageID().equals(any.getMessageID()));
+                        }
+                    }
+                } catch (Throwable t) {
+                    failures.add(t);
+                }
+                return null;
+            });
+        }
+
+        start.countDown();
+        Set<String> expectedIds = new HashSet<>();
+        int disregarded = 0;
+        for (Future<List<Message>> writer : writers) {
+            for (Message msg : writer.get(60, TimeUnit.SECONDS)) {
+                expectedIds.add(msg.getMessageID());
+                if (msg.getStatus() == MessageStatus.DISREGARD) {
+                    disregarded++;
+                }
+            }
+        }
+        writing.set(false);
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+        assertTrue(failures.isEmpty(), () -> "Reader failed: " + failures.peek());
+
+        int expected = WRITERS * MESSAGES_PER_WRITER * 4 / 5;
+        assertEquals(expected, expectedIds.size());
+        assertEquals(expected, store.size());
+        assertEquals(expected, store.getStats().total());
+        assertEquals(disregarded, store.snapshot().withStatus(MessageStatus.DISREGARD).size());
+        assertEquals(disregarded, store.getStats().count(MessageStatus.DISREGARD));
+        for (String id : expectedIds) {
+            assertNotNull(store.findById(id), "Message " + id + " should still be findable.");
+        }
+        store.close();
+
+        MessageStore reloaded = newStore();
+        assertEquals(expected, reloaded.load(), "The log should hold exactly the surviving messages.");
+        Set<String> reloadedIds = new HashSet<>();
+        for (Message m : reloaded.snapshot().messages()) {
+            reloadedIds.add(m.getMessageID());
+        }
+        assertEquals(expectedIds, reloadedIds);
+        reloaded.close();
+    }
+
+    @Test
+    @DisplayName("Test: Snapshots are shared until the store changes and never change afterwards")
+    void testSnapshotsAreImmutableAndShared() throws IOException {
+        MessageStore store = newStore();
+        store.load();
+        Message first = message(0, 0);
+        store.storeAsync(List.of(first)).join();
+
+        MessageStore.Snapshot before = store.snapshot();
+        assertSame(before, store.snapshot(), "An unchanged store should hand out the same snapshot.");
+        assertThrows(UnsupportedOperationException.class, () -> before.messages().add(first));
+
+        Message second = message(0, 1);
+        store.storeAsync(List.of(second)).join();
+        MessageStore.Snapshot after = store.snapshot();
+        assertEquals(List.of(first), before.messages(), "Old snapshots should not see later stores.");
+        assertEquals(List.of(first, second), after.messages());
+
+        first.setFlag("Sent");
+        assertNotSame(after, store.snapshot(), "A status change should publish a new snapshot.");
+        store.close();
+    }
+
+    @Test
+    @DisplayName("Test: Changing a stored message's fields re-files it in every index")
+    void testStoredMessageChangesAreReindexed() throws IOException {
+        MessageStore store = newStore();
+        store.load();
+        Message msg = message(0, 0);
+        store.storeAsync(List.of(msg)).join();
+        String oldHash = msg.getHash();
+
+        msg.setMessageID("1999999999");
+        msg.setRecipient("+27832222222");
+        msg.setContent("Rewritten completely");
+        assertNull(store.findById("1000000000"));
+        assertSame(msg, store.findById("1999999999"));
+        assertNull(store.findByHash(oldHash));
+        assertSame(msg, store.findByHash(msg.getHash()));
+        assertTrue(store.findByRecipient("+27831000000", MessageStatus.values()).isEmpty());
+        assertEquals(List.of(msg), store.findByRecipient("0832222222", MessageStatus.values()));
+        assertTrue(store.findByKeyword("even").isEmpty());
+        assertEquals(List.of(msg), store.findByKeyword("rewritten"));
+        assertSame(msg, store.longest());
+
+        assertSame(msg, store.delete(msg.getHash()), "Deleting by the new hash should find the message.");
+        assertEquals(0, store.size());
+        assertNull(store.findById("1999999999"));
+
+        Message stale = message(0, 1);
+        store.storeAsync(List.of(stale)).join();
+        store.load();
+        Message reloaded = store.findById("1000000001");
+        assertNotSame(stale, reloaded, "Loading should read fresh messages from storage.");
+        stale.setMessageID("1888888888");
+        assertNull(store.findById("1888888888"), "Messages from before a reload should not be re-filed.");
+        assertSame(reloaded, store.findByHash(reloaded.getHash()));
+        assertEquals(1, store.size());
+        store.close();
+    }
+
+    @Test
+    @DisplayName("Test: Bulk import of JSONL stores valid rows in chunks and reports each reject by line")
+    void testImportJsonLines() throws IOException {
+        Path dump = tempDir.resolve("dump.jsonl");
+        Files.writeString(dump, String.join("\n",
+                "{\"messageID\":\"1000000001\",\"sender\":\"+27830000001\",\"recipient\":\"+27831111111\",\"content\":\"First\",\"flag\":\"Sent\"}",
+                "{\"sender\":\"+27830000001\",\"recipient\":\"0831111111\",\"content\":\"Needs an ID\"}",
+                "{\"messageID\":\"1000000002\",\"recipient\":\"12345\",\"content\":\"Bad number\"}",
+                "{\"messageID\":\"1000000001\",\"recipient\":\"+27831111111\",\"content\":\"Same ID\"}",
+                "{not json",
+                "",
+                "{\"recipient\":\"+27831111111\",\"content\":\"Odd flag\",\"flag\":\"Archived\"}",
+                "{\"messageID\":\"1000000003\",\"recipient\":\"+27831111111\",\"content\":\"Kept as draft\",\"flag\":\"Stored\"}"));
+
+        MessageStore store = newStore();
+        store.load();
+        MessageImporter.Report report = new MessageImporter(store, 3, null).importFile(dump.toFile());
+
+        assertEquals(7, report.rows(), "Blank lines are not rows.");
+        assertEquals(3, report.imported());
+        assertEquals(4, report.rejected());
+        assertEquals(List.of(3L, 4L, 5L, 7L), report.rejects().stream().map(MessageImporter.Reject::line).toList());
+        assertTrue(report.rejects().get(1).reason().startsWith("Duplicate message ID"));
+        assertEquals(3, store.size());
+        assertEquals(MessageStatus.SENT, store.findByKeyword("needs").get(0).getStatus(), "Rows without a flag import as sent.");
+        assertTrue(store.findByKeyword("needs").get(0).checkMessageID(), "Rows without an ID should be given one.");
+        assertEquals(1, store.snapshot().withStatus(MessageStatus.STORED).size());
+        store.close();
+
+        MessageStore reloaded = newStore();
+        assertEquals(3, reloaded.load());
+        reloaded.close();
+    }
+
+    @Test
+    @DisplayName("Test: Bulk import of CSV handles quoted fields and rejects IDs already stored")
+    void testImportCsv() throws IOException {
+        MessageStore store = newStore();
+        store.load();
+        Message existing = message(0, 0);
+        existing.setMessageID("1000000005");
+        Message leadingZero = message(0, 1);
+        leadingZero.setMessageID("0100000005");
+        store.storeAsync(List.of(existing, leadingZero)).join();
+
+        Path dump = tempDir.resolve("dump.csv");
+        Files.writeString(dump, String.join("\n",
+                "Recipient,Content,MessageID,Flag",
+                "+27831111111,\"Hello, \"\"world\"\"\",,Sent",
+                "0831111111,Already there,1000000005,Sent",
+                "0831111111,Too,many,columns,here",
+                "0831111111,\"Unterminated,,Sent",
+                "0831111111,Also there,0100000005,Sent",
+                "0831111111,New with a leading zero,0200000005,Sent",
+                "0831111111,Twice with a leading zero,0200000005,Sent"));
+
+        MessageImporter.Report report = new MessageImporter(store, 2, null).importFile(dump.toFile());
+
+        assertEquals(7, report.rows());
+        assertEquals(2, report.imported());
+        assertEquals(List.of(3L, 4L, 5L, 6L, 8L), report.rejects().stream().map(MessageImporter.Reject::line).toList());
+        assertEquals("Hello, \"world\"", store.findByKeyword("world").get(0).getContent());
+        assertEquals(4, store.size());
+        store.close();
+    }
+
+    @Test
+    @DisplayName("Test: The ID allocator hands out unique ten digit IDs to concurrent threads")
+    void testIdAllocatorIsUniqueUnderConcurrency() throws Exception {
+        MessageIdAllocator allocator = new MessageIdAllocator(3);
+        long nodeRange = (MessageIdAllocator.MAX_ID - MessageIdAllocator.MIN_ID + 1) / MessageIdAllocator.MAX_NODES;
+        long base = MessageIdAllocator.MIN_ID + 3 * nodeRange;
+        int threads = 8;
+        int perThread = 20_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<long[]>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            results.add(pool.submit(() -> {
+                long[] ids = new long[perThread];
+                for (int i = 0; i < perThread; i++) {
+                    ids[i] = allocator.next();
+                }
+                return ids;
+            }));
+        }
+        Set<Long> all = new HashSet<>();
+        for (Future<long[]> result : results) {
+            long previous = -1;
+            for (long id : result.get(30, TimeUnit.SECONDS)) {
+                assertTrue(all.add(id), "ID " + id + " was handed out twice.");
+                assertTrue(id > previous, "Each thread should see increasing IDs.");
+                assertTrue(id >= base && id < base + nodeRange, "ID " + id + " is outside node 3's range.");
+                previous = id;
+            }
+        }
+        pool.shutdown();
+        assertEquals(threads * perThread, all.size());
+
+        Message msg = new Message("+27830000001", "+27830000002", "Allocated", "Sent");
+        assertTrue(msg.checkMessageID(), "New messages should get ten digit IDs.");
+    }
+
+    @Test
+    @DisplayName("Test: The ID allocator keeps up with the clock and skips IDs already in use")
+    void testIdAllocatorFollowsClockAndSkipsObservedIds() {
+        AtomicLong clock = new AtomicLong(100);
+        MessageIdAllocator allocator = new MessageIdAllocator(0, 4, clock::get);
+        long min = MessageIdAllocator.MIN_ID;
+
+        allocator.observe(min + 50);  // behind the clock: could never be handed out anyway
+        allocator.observe(min + 105); // ahead of the counter, e.g. issued before a restart
+        assertEquals(min + 100, allocator.next());
+        assertEquals(List.of(min + 101, min + 102, min + 103, min + 104, min + 106),
+                List.of(allocator.next(), allocator.next(), allocator.next(), allocator.next(), allocator.next()));
+
+        clock.set(1000);
+        assertEquals(min + 107, allocator.next(), "The current block is used up first.");
+        assertEquals(min + 1000, allocator.next(), "A new block should start no earlier than the clock.");
+
+        long nodeRange = (MessageIdAllocator.MAX_ID - MessageIdAllocator.MIN_ID + 1) / MessageIdAllocator.MAX_NODES;
+        clock.set(nodeRange - 2);
+        assertEquals(min + 1003, Math.max(allocator.next(), Math.max(allocator.next(), allocator.next())));
+        assertThrows(IllegalStateException.class, allocator::next, "A used up range should fail rather than wrap.");
+    }
+
+    @Test
+    @DisplayName("Test: Short lived threads do not strand the rest of their ID blocks")
+    void testIdAllocatorSharesBlocksBetweenThreads() throws Exception {
+        MessageIdAllocator allocator = new MessageIdAllocator(0, 32, () -> 0);
+        int sessions = 2_000;
+        long highest = 0;
+        for (int i = 0; i < sessions; i++) {
+            AtomicLong id = new AtomicLong();
+            Thread.ofVirtual().start(() -> id.set(allocator.next())).join();
+            highest = Math.max(highest, id.get());
+        }
+        int stripes = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2);
+        assertTrue(highest - MessageIdAllocator.MIN_ID < sessions + stripes * 32L,
+                "One ID per thread should use about one ID each, not a block each: " + highest);
+    }
+}
@@ -0,0 +1,169 @@
+package com.project;
+
+import com.project.Model.PasswordHasher;
+import com.project.Model.SessionManager;
+import com.project.Model.User;
+import com.project.Model.UserRegistry;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JUnit 5 tests for the indexed, persistent user registry, password hashing and sessions.
+ */
+public class UserRegistryTests {
+
+    @TempDir
+    Path tempDir;
+
+    /** Few iterations, so the tests are not dominated by hashing. */
+    private static final PasswordHasher HASHER = new PasswordHasher(1000);
+
+    private static User user(String username, String phoneNumber) {
+        return new User(username, "First", "Last", "Passw0rd!", phoneNumber);
+    }
+
+    @Test
+    @DisplayName("Test: Usernames and phone numbers can only be registered once")
+    void testRegisterAndFind() throws IOException {
+        UserRegistry users = new UserRegistry(null, HASHER);
+        User alice = user("al_ce", "+27831234567");
+
+        assertEquals(UserRegistry.Result.REGISTERED, users.register(alice));
+        assertEquals(UserRegistry.Result.USERNAME_TAKEN, users.register(user("al_ce", "+27830000000")));
+        assertEquals(UserRegistry.Result.PHONE_NUMBER_TAKEN, users.register(user("bo_b", "0831234567")),
+                "The same number in local format should count as taken.");
+        assertEquals(1, users.size());
+
+        User registered = users.findByUsername("al_ce");
+        assertEquals("+27831234567", registered.getPhoneNumber());
+        assertTrue(PasswordHasher.isHash(registered.getPassword()), "Only a hash of the password should be kept.");
+        assertSame(registered, users.findByPhoneNumber("0831234567"));
+        assertNull(users.findByPhoneNumber("+27830000000"));
+        assertSame(registered, users.login("al_ce", "Passw0rd!"));
+        assertNull(users.login("al_ce", "wrong"));
+        assertNull(users.login("nobody", "Passw0rd!"));
+    }
+
+    @Test
+    @DisplayName("Test: Registered users survive a restart and a torn final line")
+    void testUsersArePersisted() throws IOException {
+        File file = tempDir.resolve("users.jsonl").toFile();
+        try (UserRegistry users = new UserRegistry(file, HASHER)) {
+            users.register(user("al_ce", "+27831234567"));
+            users.register(user("bo_b", "+27837654321"));
+        }
+        Files.writeString(file.toPath(), "{\"username\":\"ca_", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (UserRegistry reloaded = new UserRegistry(file, HASHER)) {
+            reloaded.load();
+            assertEquals(2, reloaded.size());
+            assertEquals("al_ce", reloaded.get(0).getUsername());
+            assertNotNull(reloaded.login("bo_b", "Passw0rd!"));
+            assertEquals(UserRegistry.Result.REGISTERED, reloaded.register(user("ca_ol", "+27830000003")));
+        }
+
+        try (UserRegistry again = new UserRegistry(file, HASHER)) {
+            again.load();
+            assertEquals(3, again.size(), "A user added after the torn line should still be readable.");
+            assertNotNull(again.findByPhoneNumber("0830000003"));
+        }
+    }
+
+    @Test
+    @DisplayName("Test: Lookups stay fast with hundreds of thousands of accounts")
+    void testManyUsers() throws IOException {
+        UserRegistry users = new UserRegistry(null, new PasswordHasher(1));
+        int count = 300_000;
+        for (int i = 0; i < count; i++) {
+            users.register(new User("u" + i, "First", "Last", "Passw0rd!", String.format("+278%08d", i)));
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            assertNotNull(users.login("u" + i, "Passw0rd!"));
+        }
+        assertTrue(System.nanoTime() - started < 5_000_000_000L, "Logging everyone in should not scan the list.");
+        assertEquals(count, users.size());
+    }
+
+    @Test
+    @DisplayName("Test: Plaintext passwords in an old user file are hashed on load")
+    void testPlaintextPasswordsAreMigrated() throws IOException {
+        File file = tempDir.resolve("users.jsonl").toFile();
+        Files.writeString(file.toPath(), "{\"username\":\"al_ce\",\"firstname\":\"Alice\",\"lastname\":\"Smith\","
+                + "\"password\":\"Passw0rd!\",\"phoneNumber\":\"+27831234567\"}\n", StandardCharsets.UTF_8);
+
+        try (UserRegistry users = new UserRegistry(file, HASHER)) {
+            users.load();
+            assertNotNull(users.login("al_ce", "Passw0rd!"));
+        }
+        String saved = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+        assertFalse(saved.contains("Passw0rd!"), saved);
+        assertTrue(saved.contains("Alice"), saved);
+    }
+
+    @Test
+    @DisplayName("Test: A password that looks like a hash is still hashed on registration")
+    void testHashLikePasswordIsHashed() throws IOException {
+        UserRegistry users = new UserRegistry(null, HASHER);
+        String planted = "pbkdf2-sha256$2000000000$AAAAAAAAAAAAAAAAAAAAAA$AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA";
+        users.register(new User("ev_l", "Eve", "Evil", planted, "+27830000009"));
+
+        String stored = users.findByUsername("ev_l").getPassword();
+        assertNotEquals(planted, stored);
+        assertTrue(stored.startsWith("pbkdf2-sha256$1000$"), stored);
+        assertNotNull(users.login("ev_l", planted));
+    }
+
+    @Test
+    @DisplayName("Test: A password only verifies against its own hash")
+    void testPasswordHashing() {
+        String hash = HASHER.hash("Passw0rd!");
+        assertNotEquals(hash, HASHER.hash("Passw0rd!"), "Each hash should have its own salt.");
+        assertTrue(HASHER.verify("Passw0rd!", hash));
+        assertTrue(new PasswordHasher(5).verify("Passw0rd!", hash), "The iteration count should come from the hash.");
+        assertFalse(HASHER.verify("passw0rd!", hash));
+        assertFalse(HASHER.verify("Passw0rd!", "Passw0rd!"));
+        assertFalse(HASHER.verify("Passw0rd!", "pbkdf2-sha256$x$$"));
+        String huge = hash.replaceFirst("\\$1000\\$", "\\$" + (PasswordHasher.MAX_ITERATIONS + 1) + "\\$");
+        assertFalse(HASHER.verify("Passw0rd!", huge), "Too many iterations should be refused without hashing.");
+    }
+
+    @Test
+    @DisplayName("Test: Sessions resume until idle too long and the oldest go when full")
+    void testSessions() {
+        long[] now = {0};
+        SessionManager sessions = new SessionManager(10, TimeUnit.MINUTES, 2, () -> now[0]);
+        User alice = user("al_ce", "+27831234567");
+        User bob = user("bo_b", "+27837654321");
+
+        String aliceToken = sessions.open(alice);
+        assertSame(alice, sessions.resume(aliceToken));
+        assertNull(sessions.resume("not a token"));
+
+        now[0] += TimeUnit.MINUTES.toNanos(9);
+        assertSame(alice, sessions.resume(aliceToken), "Using a session should keep it alive.");
+        now[0] += TimeUnit.MINUTES.toNanos(9);
+        String bobToken = sessions.open(bob);
+        assertSame(alice, sessions.resume(aliceToken));
+
+        String carolToken = sessions.open(user("ca_ol", "+27830000003"));
+        assertEquals(2, sessions.size());
+        assertNull(sessions.resume(bobToken), "The least recently used session should make room.");
+
+        now[0] += TimeUnit.MINUTES.toNanos(10);
+        assertNull(sessions.resume(aliceToken), "An idle session should expire.");
+        assertNotNull(carolToken);
+        sessions.close(carolToken);
+        assertNull(sessions.resume(carolToken));
+    }
+}
@@ -0,0 +1,111 @@
+package com.project;
+
+import com.project.Model.ValidationEngine;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH comparison of the ValidationEngine scanners against the regular expression checks
+ * they replaced. Not run by the tests; start it with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.project.ValidationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    /** The candidates checked in a batch; a mix of valid and invalid values. */
+    @Param({"1000", "100000"})
+    int batchSize;
+
+    private String[] passwords;
+    private String[] phoneNumbers;
+
+    @Setup
+    public void setUp() {
+        String[] samplePasswords = {"Passw0rd!", "password", "Password1", "Sh0rt!", "Ch&&sec@ke99!", "ALLCAPS123$"};
+        String[] sampleNumbers = {"+27831234567", "0831234567", " 0721234567 ", "+2783123456", "0531234567", "08312345a7"};
+        passwords = new String[batchSize];
+        phoneNumbers = new String[batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            passwords[i] = samplePasswords[i % samplePasswords.length];
+            phoneNumbers[i] = sampleNumbers[i % sampleNumbers.length];
+        }
+    }
+
+    // The checks as they were before ValidationEngine, without the println.
+
+    static boolean regexPassword(String password) {
+        if (password.length() < 8) return false;
+        boolean hasUppercase = !password.equals(password.toLowerCase());
+        boolean hasDigit = password.matches(".*\\d.*");
+        boolean hasSpecial = password.matches(".*[!@#$%^&*()_+\\-=\\[\\]{};':\"\\\\|,.<>/?].*");
+        return hasUppercase && hasDigit && hasSpecial;
+    }
+
+    static boolean regexPhoneNumber(String phoneNumber) {
+        phoneNumber = phoneNumber.trim();
+        return phoneNumber.matches("^\\+27\\d{9}$") || phoneNumber.matches("^0[6-8]\\d{8}$");
+    }
+
+    @Benchmark
+    public void passwordRegex(Blackhole bh) {
+        for (String p : passwords) {
+            bh.consume(regexPassword(p));
+        }
+    }
+
+    @Benchmark
+    public void passwordEngine(Blackhole bh) {
+        for (String p : passwords) {
+            bh.consume(ValidationEngine.password(p));
+        }
+    }
+
+    @Benchmark
+    public ValidationEngine.Code[] passwordEngineBatch() {
+        return ValidationEngine.validate(ValidationEngine.Rule.PASSWORD, passwords);
+    }
+
+    @Benchmark
+    public void phoneNumberRegex(Blackhole bh) {
+        for (String n : phoneNumbers) {
+            bh.consume(regexPhoneNumber(n));
+        }
+    }
+
+    @Benchmark
+    public void phoneNumberEngine(Blackhole bh) {
+        for (String n : phoneNumbers) {
+            bh.consume(ValidationEngine.phoneNumber(n));
+        }
+    }
+
+    @Benchmark
+    public ValidationEngine.Code[] phoneNumberEngineBatch() {
+        return ValidationEngine.validate(ValidationEngine.Rule.PHONE_NUMBER, phoneNumbers);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ValidationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
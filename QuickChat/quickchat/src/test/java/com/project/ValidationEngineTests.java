@@ -0,0 +1,95 @@
+package com.project;
+
+import com.project.Model.ValidationEngine;
+import com.project.Model.ValidationEngine.Code;
+import com.project.Model.ValidationEngine.Rule;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+/**
+ * JUnit 5 tests for the hand written validation rules.
+ */
+public class ValidationEngineTests {
+
+    // The regular expression checks the engine replaced, to compare against.
+
+    private static boolean regexPassword(String password) {
+        if (password.length() < 8) return false;
+        boolean hasUppercase = !password.equals(password.toLowerCase());
+        boolean hasDigit = password.matches(".*\\d.*");
+        boolean hasSpecial = password.matches(".*[!@#$%^&*()_+\\-=\\[\\]{};':\"\\\\|,.<>/?].*");
+        return hasUppercase && hasDigit && hasSpecial;
+    }
+
+    private static boolean regexCellNumber(String number) {
+        return number.matches("^\\+27\\d{9}$") || number.matches("^0[6-8]\\d{8}$");
+    }
+
+    private static String randomString(Random random, String alphabet, int maxLength) {
+        StringBuilder sb = new StringBuilder();
+        int length = random.nextInt(maxLength + 1);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    @DisplayName("Test: Each rule reports the first problem it finds")
+    void testErrorCodes() {
+        assertEquals(Code.OK, ValidationEngine.userName("ky_1"));
+        assertEquals(Code.USERNAME_TOO_LONG, ValidationEngine.userName("kyl_e1"));
+        assertEquals(Code.USERNAME_MISSING_UNDERSCORE, ValidationEngine.userName("kyle"));
+
+        assertEquals(Code.OK, ValidationEngine.password("Ch&&sec@ke99!"));
+        assertEquals(Code.PASSWORD_TOO_SHORT, ValidationEngine.password("Ch&s1"));
+        assertEquals(Code.PASSWORD_MISSING_UPPERCASE, ValidationEngine.password("ch&&sec@ke99!"));
+        assertEquals(Code.PASSWORD_MISSING_DIGIT, ValidationEngine.password("Ch&&sec@ke!"));
+        assertEquals(Code.PASSWORD_MISSING_SPECIAL, ValidationEngine.password("Chsecke99"));
+        assertEquals(Code.PASSWORD_LINE_BREAK, ValidationEngine.password("Ch&&sec\n@ke99!"));
+
+        assertEquals(Code.OK, ValidationEngine.phoneNumber(" +27838968976 "));
+        assertEquals(Code.PHONE_BAD_PREFIX, ValidationEngine.cellNumber(" +27838968976 "));
+        assertEquals(Code.PHONE_BAD_PREFIX, ValidationEngine.cellNumber("0538968976"));
+        assertEquals(Code.PHONE_BAD_LENGTH, ValidationEngine.cellNumber("+2783896897"));
+        assertEquals(Code.PHONE_NOT_DIGIT, ValidationEngine.cellNumber("08389a8976"));
+        assertEquals(Code.MISSING, Rule.CELL_NUMBER.check(null));
+    }
+
+    @Test
+    @DisplayName("Test: The rules accept exactly what the old regular expressions accepted")
+    void testAgreesWithRegularExpressions() {
+        Random random = new Random(5121);
+        String passwordAlphabet = "aZz09!_-\\[]\"?~ \néÉİ١ ";
+        String numberAlphabet = "+0123456789 \t١a";
+        for (int i = 0; i < 50_000; i++) {
+            String password = randomString(random, passwordAlphabet, 12);
+            assertEquals(regexPassword(password), ValidationEngine.password(password).isValid(), password);
+
+            String number = random.nextBoolean() ? randomString(random, numberAlphabet, 14)
+                    : (random.nextBoolean() ? "+27" : "0" + random.nextInt(10)) + randomString(random, numberAlphabet, 10);
+            assertEquals(regexCellNumber(number), ValidationEngine.cellNumber(number).isValid(), number);
+            assertEquals(regexCellNumber(number.trim()), ValidationEngine.phoneNumber(number).isValid(), number);
+        }
+    }
+
+    @Test
+    @DisplayName("Test: A batch gives the same outcome for each candidate, in order, however large it is")
+    void testBatchValidation() {
+        String[] samples = {"+27831234567", "0831234567", "0531234567", null, "+2783123456"};
+        for (int size : new int[] {0, 7, 20_000}) {
+            String[] candidates = new String[size];
+            for (int i = 0; i < size; i++) {
+                candidates[i] = samples[i % samples.length];
+            }
+            Code[] results = ValidationEngine.validate(Rule.CELL_NUMBER, candidates);
+            assertEquals(size, results.length);
+            for (int i = 0; i < size; i++) {
+                assertEquals(ValidationEngine.cellNumber(candidates[i]), results[i]);
+            }
+        }
+    }
+}